@@ -16,6 +16,8 @@
 
 package org.remarker;
 
+import java.util.function.Function;
+import java.util.function.Supplier;
 import org.remarker.dom.*;
 
 import static org.remarker.dom.BreakStyle.*;
@@ -39,906 +41,1328 @@ public final class Html
         return new Fragment(contents);
     }
 
+    /**
+     * Contents that are only produced when they're output, such as a stream of rows straight
+     * from a database, so that they never need to be held in memory all at once.
+     * <p>
+     * Since the layout of an element is chosen before its contents are output, an element
+     * with deferred contents is laid out as if they weren't inline, so in pretty output
+     * {@code P(deferred(() -> "x"))} puts the text on its own indented line where
+     * {@code P("x")} keeps it on the same line as the tags.
+     */
+    public static Deferred deferred(Supplier<?> contents)
+    {
+        return new Deferred(contents);
+    }
+
+    /**
+     * A placeholder for a {@link Template}, to be filled with values of the given type that are
+     * used as contents as they are.
+     */
+    public static <T> Slot<T> slot(String name)
+    {
+        return new Slot<>(name, value -> value);
+    }
+
+    /**
+     * A placeholder for a {@link Template}, to be filled with values that are converted into
+     * contents each time the template is output.
+     */
+    public static <T> Slot<T> slot(String name, Function<? super T, ?> contents)
+    {
+        return new Slot<>(name, contents);
+    }
+
+    /**
+     * HTML that is output as is, without escaping. Only for HTML that was rendered or sanitized
+     * elsewhere, such as the output of a Markdown renderer.
+     */
+    public static TrustedHtml unsafeTrustedHtml(String html)
+    {
+        return TrustedHtml.unsafe(html);
+    }
+
+    /**
+     * Text read straight from the sequence when it's output, such as a large excerpt built in a
+     * StringBuilder, without copying it. Any other character sequence given as contents is
+     * copied with toString(). The sequence must not change until the text has been output, and
+     * whatever the element works out from its contents when it's constructed, such as whether
+     * they have line breaks, is not worked out again. Raw text elements such as SCRIPT copy
+     * it anyway.
+     */
+    public static Text text(CharSequence text)
+    {
+        return Text.of(text);
+    }
+
+    /**
+     * Text read straight from part of the array when it's output, in the same way as
+     * {@link #text(CharSequence)}.
+     */
+    public static Text text(char[] chars, int offset, int length)
+    {
+        return Text.slice(chars, offset, length);
+    }
+
+    /**
+     * Text that takes one byte per character rather than two if it's all Latin-1, for pages
+     * that are kept in memory for a long time, such as a cache of rendered documents. Like any
+     * other contents, the sequence is copied.
+     */
+    public static Text compactText(CharSequence text)
+    {
+        return Text.compact(text);
+    }
+
+    /**
+     * Text from UTF-8 bytes, kept as they are without copying if they're all ASCII, in which
+     * case the array must not change until the text has been output.
+     */
+    public static Text compactText(byte[] utf8, int offset, int length)
+    {
+        return Text.compactUtf8(utf8, offset, length);
+    }
+
     // BEGIN GENERATED CODE
 
+    public static final ElementType A_TYPE = ElementType.register("A", INLINE, MIXED);
+
     public static Element A(Object... contents)
     {
-        return new Element("A", INLINE, MIXED, contents);
+        return new Element(A_TYPE, contents);
     }
 
+    public static final ElementType ABBR_TYPE = ElementType.register("ABBR", INLINE, MIXED);
+
     public static Element ABBR(Object... contents)
     {
-        return new Element("ABBR", INLINE, MIXED, contents);
+        return new Element(ABBR_TYPE, contents);
     }
 
+    public static final ElementType ACRONYM_TYPE = ElementType.register("ACRONYM", INLINE, MIXED);
+
     public static Element ACRONYM(Object... contents)
     {
-        return new Element("ACRONYM", INLINE, MIXED, contents);
+        return new Element(ACRONYM_TYPE, contents);
     }
 
+    public static final ElementType ADDRESS_TYPE = ElementType.register("ADDRESS", BLOCK, MIXED);
+
     public static Element ADDRESS(Object... contents)
     {
-        return new Element("ADDRESS", BLOCK, MIXED, contents);
+        return new Element(ADDRESS_TYPE, contents);
     }
 
+    public static final ElementType AREA_TYPE = ElementType.register("AREA", BLOCK, VOID);
+
     public static Element AREA(Object... contents)
     {
-        return new Element("AREA", BLOCK, VOID, contents);
+        return new Element(AREA_TYPE, contents);
     }
 
+    public static final ElementType B_TYPE = ElementType.register("B", INLINE, MIXED);
+
     public static Element B(Object... contents)
     {
-        return new Element("B", INLINE, MIXED, contents);
+        return new Element(B_TYPE, contents);
     }
 
+    public static final ElementType BASE_TYPE = ElementType.register("BASE", BLOCK, VOID);
+
     public static Element BASE(Object... contents)
     {
-        return new Element("BASE", BLOCK, VOID, contents);
+        return new Element(BASE_TYPE, contents);
     }
 
+    public static final ElementType BDO_TYPE = ElementType.register("BDO", INLINE, MIXED);
+
     public static Element BDO(Object... contents)
     {
-        return new Element("BDO", INLINE, MIXED, contents);
+        return new Element(BDO_TYPE, contents);
     }
 
+    public static final ElementType BIG_TYPE = ElementType.register("BIG", INLINE, MIXED);
+
     public static Element BIG(Object... contents)
     {
-        return new Element("BIG", INLINE, MIXED, contents);
+        return new Element(BIG_TYPE, contents);
     }
 
+    public static final ElementType BLOCKQUOTE_TYPE = ElementType.register("BLOCKQUOTE", BLOCK, MIXED);
+
     public static Element BLOCKQUOTE(Object... contents)
     {
-        return new Element("BLOCKQUOTE", BLOCK, MIXED, contents);
+        return new Element(BLOCKQUOTE_TYPE, contents);
     }
 
+    public static final ElementType BODY_TYPE = ElementType.register("BODY", BLOCK, MIXED);
+
     public static Element BODY(Object... contents)
     {
-        return new Element("BODY", BLOCK, MIXED, contents);
+        return new Element(BODY_TYPE, contents);
     }
 
+    public static final ElementType BR_TYPE = ElementType.register("BR", BLOCK, VOID);
+
     public static Element BR(Object... contents)
     {
-        return new Element("BR", BLOCK, VOID, contents);
+        return new Element(BR_TYPE, contents);
     }
 
+    public static final ElementType BUTTON_TYPE = ElementType.register("BUTTON", INLINE, MIXED);
+
     public static Element BUTTON(Object... contents)
     {
-        return new Element("BUTTON", INLINE, MIXED, contents);
+        return new Element(BUTTON_TYPE, contents);
     }
 
+    public static final ElementType CAPTION_TYPE = ElementType.register("CAPTION", BLOCK, MIXED);
+
     public static Element CAPTION(Object... contents)
     {
-        return new Element("CAPTION", BLOCK, MIXED, contents);
+        return new Element(CAPTION_TYPE, contents);
     }
 
+    public static final ElementType CITE_TYPE = ElementType.register("CITE", INLINE, MIXED);
+
     public static Element CITE(Object... contents)
     {
-        return new Element("CITE", INLINE, MIXED, contents);
+        return new Element(CITE_TYPE, contents);
     }
 
+    public static final ElementType CODE_TYPE = ElementType.register("CODE", INLINE, MIXED);
+
     public static Element CODE(Object... contents)
     {
-        return new Element("CODE", INLINE, MIXED, contents);
+        return new Element(CODE_TYPE, contents);
     }
 
+    public static final ElementType COL_TYPE = ElementType.register("COL", BLOCK, VOID);
+
     public static Element COL(Object... contents)
     {
-        return new Element("COL", BLOCK, VOID, contents);
+        return new Element(COL_TYPE, contents);
     }
 
+    public static final ElementType COLGROUP_TYPE = ElementType.register("COLGROUP", BLOCK, MIXED);
+
     public static Element COLGROUP(Object... contents)
     {
-        return new Element("COLGROUP", BLOCK, MIXED, contents);
+        return new Element(COLGROUP_TYPE, contents);
     }
 
+    public static final ElementType DD_TYPE = ElementType.register("DD", BLOCK, MIXED);
+
     public static Element DD(Object... contents)
     {
-        return new Element("DD", BLOCK, MIXED, contents);
+        return new Element(DD_TYPE, contents);
     }
 
+    public static final ElementType DEL_TYPE = ElementType.register("DEL", BLOCK, MIXED);
+
     public static Element DEL(Object... contents)
     {
-        return new Element("DEL", BLOCK, MIXED, contents);
+        return new Element(DEL_TYPE, contents);
     }
 
+    public static final ElementType DFN_TYPE = ElementType.register("DFN", INLINE, MIXED);
+
     public static Element DFN(Object... contents)
     {
-        return new Element("DFN", INLINE, MIXED, contents);
+        return new Element(DFN_TYPE, contents);
     }
 
+    public static final ElementType DIV_TYPE = ElementType.register("DIV", BLOCK, MIXED);
+
     public static Element DIV(Object... contents)
     {
-        return new Element("DIV", BLOCK, MIXED, contents);
+        return new Element(DIV_TYPE, contents);
     }
 
+    public static final ElementType DL_TYPE = ElementType.register("DL", BLOCK, MIXED);
+
     public static Element DL(Object... contents)
     {
-        return new Element("DL", BLOCK, MIXED, contents);
+        return new Element(DL_TYPE, contents);
     }
 
+    public static final ElementType DT_TYPE = ElementType.register("DT", BLOCK, MIXED);
+
     public static Element DT(Object... contents)
     {
-        return new Element("DT", BLOCK, MIXED, contents);
+        return new Element(DT_TYPE, contents);
     }
 
+    public static final ElementType EM_TYPE = ElementType.register("EM", INLINE, MIXED);
+
     public static Element EM(Object... contents)
     {
-        return new Element("EM", INLINE, MIXED, contents);
+        return new Element(EM_TYPE, contents);
     }
 
+    public static final ElementType FIELDSET_TYPE = ElementType.register("FIELDSET", BLOCK, MIXED);
+
     public static Element FIELDSET(Object... contents)
     {
-        return new Element("FIELDSET", BLOCK, MIXED, contents);
+        return new Element(FIELDSET_TYPE, contents);
     }
 
+    public static final ElementType FORM_TYPE = ElementType.register("FORM", BLOCK, MIXED);
+
     public static Element FORM(Object... contents)
     {
-        return new Element("FORM", BLOCK, MIXED, contents);
+        return new Element(FORM_TYPE, contents);
     }
 
+    public static final ElementType H1_TYPE = ElementType.register("H1", BLOCK, MIXED);
+
     public static Element H1(Object... contents)
     {
-        return new Element("H1", BLOCK, MIXED, contents);
+        return new Element(H1_TYPE, contents);
     }
 
+    public static final ElementType H2_TYPE = ElementType.register("H2", BLOCK, MIXED);
+
     public static Element H2(Object... contents)
     {
-        return new Element("H2", BLOCK, MIXED, contents);
+        return new Element(H2_TYPE, contents);
     }
 
+    public static final ElementType H3_TYPE = ElementType.register("H3", BLOCK, MIXED);
+
     public static Element H3(Object... contents)
     {
-        return new Element("H3", BLOCK, MIXED, contents);
+        return new Element(H3_TYPE, contents);
     }
 
+    public static final ElementType H4_TYPE = ElementType.register("H4", BLOCK, MIXED);
+
     public static Element H4(Object... contents)
     {
-        return new Element("H4", BLOCK, MIXED, contents);
+        return new Element(H4_TYPE, contents);
     }
 
+    public static final ElementType H5_TYPE = ElementType.register("H5", BLOCK, MIXED);
+
     public static Element H5(Object... contents)
     {
-        return new Element("H5", BLOCK, MIXED, contents);
+        return new Element(H5_TYPE, contents);
     }
 
+    public static final ElementType H6_TYPE = ElementType.register("H6", BLOCK, MIXED);
+
     public static Element H6(Object... contents)
     {
-        return new Element("H6", BLOCK, MIXED, contents);
+        return new Element(H6_TYPE, contents);
     }
 
+    public static final ElementType HEAD_TYPE = ElementType.register("HEAD", BLOCK, MIXED);
+
     public static Element HEAD(Object... contents)
     {
-        return new Element("HEAD", BLOCK, MIXED, contents);
+        return new Element(HEAD_TYPE, contents);
     }
 
+    public static final ElementType HR_TYPE = ElementType.register("HR", BLOCK, VOID);
+
     public static Element HR(Object... contents)
     {
-        return new Element("HR", BLOCK, VOID, contents);
+        return new Element(HR_TYPE, contents);
     }
 
+    public static final ElementType HTML_TYPE = ElementType.register("HTML", BLOCK, MIXED);
+
     public static Element HTML(Object... contents)
     {
-        return new Element("HTML", BLOCK, MIXED, contents);
+        return new Element(HTML_TYPE, contents);
     }
 
+    public static final ElementType I_TYPE = ElementType.register("I", INLINE, MIXED);
+
     public static Element I(Object... contents)
     {
-        return new Element("I", INLINE, MIXED, contents);
+        return new Element(I_TYPE, contents);
     }
 
+    public static final ElementType IMG_TYPE = ElementType.register("IMG", INLINE, VOID);
+
     public static Element IMG(Object... contents)
     {
-        return new Element("IMG", INLINE, VOID, contents);
+        return new Element(IMG_TYPE, contents);
     }
 
+    public static final ElementType INPUT_TYPE = ElementType.register("INPUT", INLINE, VOID);
+
     public static Element INPUT(Object... contents)
     {
-        return new Element("INPUT", INLINE, VOID, contents);
+        return new Element(INPUT_TYPE, contents);
     }
 
+    public static final ElementType INS_TYPE = ElementType.register("INS", BLOCK, MIXED);
+
     public static Element INS(Object... contents)
     {
-        return new Element("INS", BLOCK, MIXED, contents);
+        return new Element(INS_TYPE, contents);
     }
 
+    public static final ElementType KBD_TYPE = ElementType.register("KBD", INLINE, MIXED);
+
     public static Element KBD(Object... contents)
     {
-        return new Element("KBD", INLINE, MIXED, contents);
+        return new Element(KBD_TYPE, contents);
     }
 
+    public static final ElementType LABEL_TYPE = ElementType.register("LABEL", INLINE, MIXED);
+
     public static Element LABEL(Object... contents)
     {
-        return new Element("LABEL", INLINE, MIXED, contents);
+        return new Element(LABEL_TYPE, contents);
     }
 
+    public static final ElementType LEGEND_TYPE = ElementType.register("LEGEND", BLOCK, MIXED);
+
     public static Element LEGEND(Object... contents)
     {
-        return new Element("LEGEND", BLOCK, MIXED, contents);
+        return new Element(LEGEND_TYPE, contents);
     }
 
+    public static final ElementType LI_TYPE = ElementType.register("LI", BLOCK, MIXED);
+
     public static Element LI(Object... contents)
     {
-        return new Element("LI", BLOCK, MIXED, contents);
+        return new Element(LI_TYPE, contents);
     }
 
+    public static final ElementType LINK_TYPE = ElementType.register("LINK", BLOCK, VOID);
+
     public static Element LINK(Object... contents)
     {
-        return new Element("LINK", BLOCK, VOID, contents);
+        return new Element(LINK_TYPE, contents);
     }
 
+    public static final ElementType MAP_TYPE = ElementType.register("MAP", INLINE, MIXED);
+
     public static Element MAP(Object... contents)
     {
-        return new Element("MAP", INLINE, MIXED, contents);
+        return new Element(MAP_TYPE, contents);
     }
 
+    public static final ElementType META_TYPE = ElementType.register("META", BLOCK, VOID);
+
     public static Element META(Object... contents)
     {
-        return new Element("META", BLOCK, VOID, contents);
+        return new Element(META_TYPE, contents);
     }
 
+    public static final ElementType NOSCRIPT_TYPE = ElementType.register("NOSCRIPT", BLOCK, MIXED);
+
     public static Element NOSCRIPT(Object... contents)
     {
-        return new Element("NOSCRIPT", BLOCK, MIXED, contents);
+        return new Element(NOSCRIPT_TYPE, contents);
     }
 
+    public static final ElementType OBJECT_TYPE = ElementType.register("OBJECT", INLINE, MIXED);
+
     public static Element OBJECT(Object... contents)
     {
-        return new Element("OBJECT", INLINE, MIXED, contents);
+        return new Element(OBJECT_TYPE, contents);
     }
 
+    public static final ElementType OL_TYPE = ElementType.register("OL", BLOCK, MIXED);
+
     public static Element OL(Object... contents)
     {
-        return new Element("OL", BLOCK, MIXED, contents);
+        return new Element(OL_TYPE, contents);
     }
 
+    public static final ElementType OPTGROUP_TYPE = ElementType.register("OPTGROUP", BLOCK, MIXED);
+
     public static Element OPTGROUP(Object... contents)
     {
-        return new Element("OPTGROUP", BLOCK, MIXED, contents);
+        return new Element(OPTGROUP_TYPE, contents);
     }
 
+    public static final ElementType OPTION_TYPE = ElementType.register("OPTION", BLOCK, MIXED);
+
     public static Element OPTION(Object... contents)
     {
-        return new Element("OPTION", BLOCK, MIXED, contents);
+        return new Element(OPTION_TYPE, contents);
     }
 
+    public static final ElementType P_TYPE = ElementType.register("P", BLOCK, MIXED);
+
     public static Element P(Object... contents)
     {
-        return new Element("P", BLOCK, MIXED, contents);
+        return new Element(P_TYPE, contents);
     }
 
+    public static final ElementType PARAM_TYPE = ElementType.register("PARAM", BLOCK, VOID);
+
     public static Element PARAM(Object... contents)
     {
-        return new Element("PARAM", BLOCK, VOID, contents);
+        return new Element(PARAM_TYPE, contents);
     }
 
+    public static final ElementType PRE_TYPE = ElementType.register("PRE", PRE, MIXED);
+
     public static Element PRE(Object... contents)
     {
-        return new Element("PRE", PRE, MIXED, contents);
+        return new Element(PRE_TYPE, contents);
     }
 
+    public static final ElementType Q_TYPE = ElementType.register("Q", INLINE, MIXED);
+
     public static Element Q(Object... contents)
     {
-        return new Element("Q", INLINE, MIXED, contents);
+        return new Element(Q_TYPE, contents);
     }
 
+    public static final ElementType SAMP_TYPE = ElementType.register("SAMP", INLINE, MIXED);
+
     public static Element SAMP(Object... contents)
     {
-        return new Element("SAMP", INLINE, MIXED, contents);
+        return new Element(SAMP_TYPE, contents);
     }
 
+    public static final ElementType SCRIPT_TYPE = ElementType.register("SCRIPT", BLOCK, RAW_TEXT);
+
     public static Element SCRIPT(Object... contents)
     {
-        return new Element("SCRIPT", BLOCK, RAW_TEXT, contents);
+        return new Element(SCRIPT_TYPE, contents);
     }
 
+    public static final ElementType SELECT_TYPE = ElementType.register("SELECT", INLINE, MIXED);
+
     public static Element SELECT(Object... contents)
     {
-        return new Element("SELECT", INLINE, MIXED, contents);
+        return new Element(SELECT_TYPE, contents);
     }
 
+    public static final ElementType SMALL_TYPE = ElementType.register("SMALL", INLINE, MIXED);
+
     public static Element SMALL(Object... contents)
     {
-        return new Element("SMALL", INLINE, MIXED, contents);
+        return new Element(SMALL_TYPE, contents);
     }
 
+    public static final ElementType SPAN_TYPE = ElementType.register("SPAN", INLINE, MIXED);
+
     public static Element SPAN(Object... contents)
     {
-        return new Element("SPAN", INLINE, MIXED, contents);
+        return new Element(SPAN_TYPE, contents);
     }
 
+    public static final ElementType STRONG_TYPE = ElementType.register("STRONG", INLINE, MIXED);
+
     public static Element STRONG(Object... contents)
     {
-        return new Element("STRONG", INLINE, MIXED, contents);
+        return new Element(STRONG_TYPE, contents);
     }
 
+    public static final ElementType STYLE_TYPE = ElementType.register("STYLE", BLOCK, RAW_TEXT);
+
     public static Element STYLE(Object... contents)
     {
-        return new Element("STYLE", BLOCK, RAW_TEXT, contents);
+        return new Element(STYLE_TYPE, contents);
     }
 
+    public static final ElementType SUB_TYPE = ElementType.register("SUB", INLINE, MIXED);
+
     public static Element SUB(Object... contents)
     {
-        return new Element("SUB", INLINE, MIXED, contents);
+        return new Element(SUB_TYPE, contents);
     }
 
+    public static final ElementType SUP_TYPE = ElementType.register("SUP", INLINE, MIXED);
+
     public static Element SUP(Object... contents)
     {
-        return new Element("SUP", INLINE, MIXED, contents);
+        return new Element(SUP_TYPE, contents);
     }
 
+    public static final ElementType TABLE_TYPE = ElementType.register("TABLE", BLOCK, MIXED);
+
     public static Element TABLE(Object... contents)
     {
-        return new Element("TABLE", BLOCK, MIXED, contents);
+        return new Element(TABLE_TYPE, contents);
     }
 
+    public static final ElementType TBODY_TYPE = ElementType.register("TBODY", BLOCK, MIXED);
+
     public static Element TBODY(Object... contents)
     {
-        return new Element("TBODY", BLOCK, MIXED, contents);
+        return new Element(TBODY_TYPE, contents);
     }
 
+    public static final ElementType TD_TYPE = ElementType.register("TD", BLOCK, MIXED);
+
     public static Element TD(Object... contents)
     {
-        return new Element("TD", BLOCK, MIXED, contents);
+        return new Element(TD_TYPE, contents);
     }
 
+    public static final ElementType TEXTAREA_TYPE = ElementType.register("TEXTAREA", TEXTAREA, ESCAPABLE_RAW_TEXT);
+
     public static Element TEXTAREA(Object... contents)
     {
-        return new Element("TEXTAREA", TEXTAREA, ESCAPABLE_RAW_TEXT, contents);
+        return new Element(TEXTAREA_TYPE, contents);
     }
 
+    public static final ElementType TFOOT_TYPE = ElementType.register("TFOOT", BLOCK, MIXED);
+
     public static Element TFOOT(Object... contents)
     {
-        return new Element("TFOOT", BLOCK, MIXED, contents);
+        return new Element(TFOOT_TYPE, contents);
     }
 
+    public static final ElementType TH_TYPE = ElementType.register("TH", BLOCK, MIXED);
+
     public static Element TH(Object... contents)
     {
-        return new Element("TH", BLOCK, MIXED, contents);
+        return new Element(TH_TYPE, contents);
     }
 
+    public static final ElementType THEAD_TYPE = ElementType.register("THEAD", BLOCK, MIXED);
+
     public static Element THEAD(Object... contents)
     {
-        return new Element("THEAD", BLOCK, MIXED, contents);
+        return new Element(THEAD_TYPE, contents);
     }
 
+    public static final ElementType TITLE_TYPE = ElementType.register("TITLE", BLOCK, ESCAPABLE_RAW_TEXT);
+
     public static Element TITLE(Object... contents)
     {
-        return new Element("TITLE", BLOCK, ESCAPABLE_RAW_TEXT, contents);
+        return new Element(TITLE_TYPE, contents);
     }
 
+    public static final ElementType TR_TYPE = ElementType.register("TR", BLOCK, MIXED);
+
     public static Element TR(Object... contents)
     {
-        return new Element("TR", BLOCK, MIXED, contents);
+        return new Element(TR_TYPE, contents);
     }
 
+    public static final ElementType TT_TYPE = ElementType.register("TT", INLINE, MIXED);
+
     public static Element TT(Object... contents)
     {
-        return new Element("TT", INLINE, MIXED, contents);
+        return new Element(TT_TYPE, contents);
     }
 
+    public static final ElementType UL_TYPE = ElementType.register("UL", BLOCK, MIXED);
+
     public static Element UL(Object... contents)
     {
-        return new Element("UL", BLOCK, MIXED, contents);
+        return new Element(UL_TYPE, contents);
     }
 
+    public static final ElementType VAR_TYPE = ElementType.register("VAR", INLINE, MIXED);
+
     public static Element VAR(Object... contents)
     {
-        return new Element("VAR", INLINE, MIXED, contents);
+        return new Element(VAR_TYPE, contents);
     }
 
+    private static final AttributeName ABBR_NAME = AttributeName.register("abbr");
+
     public static Attribute Abbr(String value)
     {
-        return Attribute.quotedString("abbr", value);
+        return Attribute.quotedString(ABBR_NAME, value);
     }
 
+    private static final AttributeName ACCEPT_NAME = AttributeName.register("accept");
+
     public static Attribute Accept(String value)
     {
-        return Attribute.quotedString("accept", value);
+        return Attribute.quotedString(ACCEPT_NAME, value);
     }
 
+    private static final AttributeName ACCEPT_CHARSET_NAME = AttributeName.register("accept-charset");
+
     public static Attribute AcceptCharset(String value)
     {
-        return Attribute.quotedString("accept-charset", value);
+        return Attribute.quotedString(ACCEPT_CHARSET_NAME, value);
     }
 
+    private static final AttributeName ACCESSKEY_NAME = AttributeName.register("accesskey");
+
     public static Attribute Accesskey(String value)
     {
-        return Attribute.quotedString("accesskey", value);
+        return Attribute.quotedString(ACCESSKEY_NAME, value);
     }
 
+    private static final AttributeName ACTION_NAME = AttributeName.register("action");
+
     public static Attribute Action(String value)
     {
-        return Attribute.quotedString("action", value);
+        return Attribute.quotedString(ACTION_NAME, value);
     }
 
+    private static final AttributeName ALIGN_NAME = AttributeName.register("align");
+
     public static Attribute Align(String value)
     {
-        return Attribute.quotedString("align", value);
+        return Attribute.enumerated(ALIGN_NAME, value);
     }
 
+    private static final AttributeName ALT_NAME = AttributeName.register("alt");
+
     public static Attribute Alt(String value)
     {
-        return Attribute.quotedString("alt", value);
+        return Attribute.quotedString(ALT_NAME, value);
     }
 
+    private static final AttributeName ARCHIVE_NAME = AttributeName.register("archive");
+
     public static Attribute Archive(String value)
     {
-        return Attribute.quotedString("archive", value);
+        return Attribute.quotedString(ARCHIVE_NAME, value);
     }
 
+    private static final AttributeName AXIS_NAME = AttributeName.register("axis");
+
     public static Attribute Axis(String value)
     {
-        return Attribute.quotedString("axis", value);
+        return Attribute.quotedString(AXIS_NAME, value);
     }
 
+    private static final AttributeName BORDER_NAME = AttributeName.register("border");
+
     public static Attribute Border(String value)
     {
-        return Attribute.quotedString("border", value);
+        return Attribute.quotedString(BORDER_NAME, value);
     }
 
+    private static final AttributeName CELLPADDING_NAME = AttributeName.register("cellpadding");
+
     public static Attribute Cellpadding(String value)
     {
-        return Attribute.quotedString("cellpadding", value);
+        return Attribute.quotedString(CELLPADDING_NAME, value);
     }
 
+    private static final AttributeName CELLSPACING_NAME = AttributeName.register("cellspacing");
+
     public static Attribute Cellspacing(String value)
     {
-        return Attribute.quotedString("cellspacing", value);
+        return Attribute.quotedString(CELLSPACING_NAME, value);
     }
 
+    private static final AttributeName CHAR_NAME = AttributeName.register("char");
+
     public static Attribute Char(String value)
     {
-        return Attribute.quotedString("char", value);
+        return Attribute.quotedString(CHAR_NAME, value);
     }
 
+    private static final AttributeName CHAROFF_NAME = AttributeName.register("charoff");
+
     public static Attribute Charoff(String value)
     {
-        return Attribute.quotedString("charoff", value);
+        return Attribute.quotedString(CHAROFF_NAME, value);
     }
 
+    private static final AttributeName CHARSET_NAME = AttributeName.register("charset");
+
     public static Attribute Charset(String value)
     {
-        return Attribute.quotedString("charset", value);
+        return Attribute.quotedString(CHARSET_NAME, value);
     }
 
+    private static final AttributeName CHECKED_NAME = AttributeName.register("checked");
+
     public static Attribute Checked()
     {
-        return Attribute.traditionalBoolean("checked", true);
+        return Attribute.traditionalBoolean(CHECKED_NAME, true);
     }
 
     public static Attribute Checked(Boolean value)
     {
-        return Attribute.traditionalBoolean("checked", value);
+        return Attribute.traditionalBoolean(CHECKED_NAME, value);
     }
 
+    private static final AttributeName CITE_NAME = AttributeName.register("cite");
+
     public static Attribute Cite(String value)
     {
-        return Attribute.quotedString("cite", value);
+        return Attribute.quotedString(CITE_NAME, value);
     }
 
+    private static final AttributeName CLASS_NAME = AttributeName.register("class");
+
     public static Attribute Class(String value)
     {
-        return Attribute.quotedString("class", value);
+        return Attribute.quotedString(CLASS_NAME, value);
     }
 
+    private static final AttributeName CLASSID_NAME = AttributeName.register("classid");
+
     public static Attribute Classid(String value)
     {
-        return Attribute.quotedString("classid", value);
+        return Attribute.quotedString(CLASSID_NAME, value);
     }
 
+    private static final AttributeName CODEBASE_NAME = AttributeName.register("codebase");
+
     public static Attribute Codebase(String value)
     {
-        return Attribute.quotedString("codebase", value);
+        return Attribute.quotedString(CODEBASE_NAME, value);
     }
 
+    private static final AttributeName CODETYPE_NAME = AttributeName.register("codetype");
+
     public static Attribute Codetype(String value)
     {
-        return Attribute.quotedString("codetype", value);
+        return Attribute.enumerated(CODETYPE_NAME, value);
     }
 
+    private static final AttributeName COLS_NAME = AttributeName.register("cols");
+
     public static Attribute Cols(Integer value)
     {
-        return Attribute.quotedString("cols", value);
+        return Attribute.quotedString(COLS_NAME, value);
     }
 
+    private static final AttributeName COLSPAN_NAME = AttributeName.register("colspan");
+
     public static Attribute Colspan(Integer value)
     {
-        return Attribute.quotedString("colspan", value);
+        return Attribute.quotedString(COLSPAN_NAME, value);
     }
 
+    private static final AttributeName CONTENT_NAME = AttributeName.register("content");
+
     public static Attribute Content(String value)
     {
-        return Attribute.quotedString("content", value);
+        return Attribute.quotedString(CONTENT_NAME, value);
     }
 
+    private static final AttributeName COORDS_NAME = AttributeName.register("coords");
+
     public static Attribute Coords(String value)
     {
-        return Attribute.quotedString("coords", value);
+        return Attribute.quotedString(COORDS_NAME, value);
     }
 
+    private static final AttributeName DATA_NAME = AttributeName.register("data");
+
     public static Attribute Data(String value)
     {
-        return Attribute.quotedString("data", value);
+        return Attribute.quotedString(DATA_NAME, value);
     }
 
+    private static final AttributeName DATETIME_NAME = AttributeName.register("datetime");
+
     public static Attribute Datetime(String value)
     {
-        return Attribute.quotedString("datetime", value);
+        return Attribute.quotedString(DATETIME_NAME, value);
     }
 
+    private static final AttributeName DECLARE_NAME = AttributeName.register("declare");
+
     public static Attribute Declare()
     {
-        return Attribute.traditionalBoolean("declare", true);
+        return Attribute.traditionalBoolean(DECLARE_NAME, true);
     }
 
     public static Attribute Declare(Boolean value)
     {
-        return Attribute.traditionalBoolean("declare", value);
+        return Attribute.traditionalBoolean(DECLARE_NAME, value);
     }
 
+    private static final AttributeName DEFER_NAME = AttributeName.register("defer");
+
     public static Attribute Defer()
     {
-        return Attribute.traditionalBoolean("defer", true);
+        return Attribute.traditionalBoolean(DEFER_NAME, true);
     }
 
     public static Attribute Defer(Boolean value)
     {
-        return Attribute.traditionalBoolean("defer", value);
+        return Attribute.traditionalBoolean(DEFER_NAME, value);
     }
 
+    private static final AttributeName DIR_NAME = AttributeName.register("dir");
+
     public static Attribute Dir(String value)
     {
-        return Attribute.quotedString("dir", value);
+        return Attribute.enumerated(DIR_NAME, value);
     }
 
+    private static final AttributeName DISABLED_NAME = AttributeName.register("disabled");
+
     public static Attribute Disabled()
     {
-        return Attribute.traditionalBoolean("disabled", true);
+        return Attribute.traditionalBoolean(DISABLED_NAME, true);
     }
 
     public static Attribute Disabled(Boolean value)
     {
-        return Attribute.traditionalBoolean("disabled", value);
+        return Attribute.traditionalBoolean(DISABLED_NAME, value);
     }
 
+    private static final AttributeName ENCTYPE_NAME = AttributeName.register("enctype");
+
     public static Attribute Enctype(String value)
     {
-        return Attribute.quotedString("enctype", value);
+        return Attribute.enumerated(ENCTYPE_NAME, value);
     }
 
+    private static final AttributeName FOR_NAME = AttributeName.register("for");
+
     public static Attribute For(String value)
     {
-        return Attribute.quotedString("for", value);
+        return Attribute.quotedString(FOR_NAME, value);
     }
 
+    private static final AttributeName FRAME_NAME = AttributeName.register("frame");
+
     public static Attribute Frame(String value)
     {
-        return Attribute.quotedString("frame", value);
+        return Attribute.enumerated(FRAME_NAME, value);
     }
 
+    private static final AttributeName HEADERS_NAME = AttributeName.register("headers");
+
     public static Attribute Headers(String value)
     {
-        return Attribute.quotedString("headers", value);
+        return Attribute.quotedString(HEADERS_NAME, value);
     }
 
+    private static final AttributeName HEIGHT_NAME = AttributeName.register("height");
+
     public static Attribute Height(String value)
     {
-        return Attribute.quotedString("height", value);
+        return Attribute.quotedString(HEIGHT_NAME, value);
     }
 
+    private static final AttributeName HREF_NAME = AttributeName.register("href");
+
     public static Attribute Href(String value)
     {
-        return Attribute.quotedString("href", value);
+        return Attribute.quotedString(HREF_NAME, value);
     }
 
+    private static final AttributeName HREFLANG_NAME = AttributeName.register("hreflang");
+
     public static Attribute Hreflang(String value)
     {
-        return Attribute.quotedString("hreflang", value);
+        return Attribute.enumerated(HREFLANG_NAME, value);
     }
 
+    private static final AttributeName HTTP_EQUIV_NAME = AttributeName.register("http-equiv");
+
     public static Attribute HttpEquiv(String value)
     {
-        return Attribute.quotedString("http-equiv", value);
+        return Attribute.quotedString(HTTP_EQUIV_NAME, value);
     }
 
+    private static final AttributeName ID_NAME = AttributeName.register("id");
+
     public static Attribute Id(String value)
     {
-        return Attribute.quotedString("id", value);
+        return Attribute.quotedString(ID_NAME, value);
     }
 
+    private static final AttributeName ISMAP_NAME = AttributeName.register("ismap");
+
     public static Attribute Ismap()
     {
-        return Attribute.traditionalBoolean("ismap", true);
+        return Attribute.traditionalBoolean(ISMAP_NAME, true);
     }
 
     public static Attribute Ismap(Boolean value)
     {
-        return Attribute.traditionalBoolean("ismap", value);
+        return Attribute.traditionalBoolean(ISMAP_NAME, value);
     }
 
+    private static final AttributeName LABEL_NAME = AttributeName.register("label");
+
     public static Attribute Label(String value)
     {
-        return Attribute.quotedString("label", value);
+        return Attribute.quotedString(LABEL_NAME, value);
     }
 
+    private static final AttributeName LANG_NAME = AttributeName.register("lang");
+
     public static Attribute Lang(String value)
     {
-        return Attribute.quotedString("lang", value);
+        return Attribute.enumerated(LANG_NAME, value);
     }
 
+    private static final AttributeName LONGDESC_NAME = AttributeName.register("longdesc");
+
     public static Attribute Longdesc(String value)
     {
-        return Attribute.quotedString("longdesc", value);
+        return Attribute.quotedString(LONGDESC_NAME, value);
     }
 
+    private static final AttributeName MAXLENGTH_NAME = AttributeName.register("maxlength");
+
     public static Attribute Maxlength(Integer value)
     {
-        return Attribute.quotedString("maxlength", value);
+        return Attribute.quotedString(MAXLENGTH_NAME, value);
     }
 
+    private static final AttributeName MEDIA_NAME = AttributeName.register("media");
+
     public static Attribute Media(String value)
     {
-        return Attribute.quotedString("media", value);
+        return Attribute.quotedString(MEDIA_NAME, value);
     }
 
+    private static final AttributeName METHOD_NAME = AttributeName.register("method");
+
     public static Attribute Method(String value)
     {
-        return Attribute.quotedString("method", value);
+        return Attribute.enumerated(METHOD_NAME, value);
     }
 
+    private static final AttributeName MULTIPLE_NAME = AttributeName.register("multiple");
+
     public static Attribute Multiple()
     {
-        return Attribute.traditionalBoolean("multiple", true);
+        return Attribute.traditionalBoolean(MULTIPLE_NAME, true);
     }
 
     public static Attribute Multiple(Boolean value)
     {
-        return Attribute.traditionalBoolean("multiple", value);
+        return Attribute.traditionalBoolean(MULTIPLE_NAME, value);
     }
 
+    private static final AttributeName NAME_NAME = AttributeName.register("name");
+
     public static Attribute Name(String value)
     {
-        return Attribute.quotedString("name", value);
+        return Attribute.quotedString(NAME_NAME, value);
     }
 
+    private static final AttributeName NOHREF_NAME = AttributeName.register("nohref");
+
     public static Attribute Nohref()
     {
-        return Attribute.traditionalBoolean("nohref", true);
+        return Attribute.traditionalBoolean(NOHREF_NAME, true);
     }
 
     public static Attribute Nohref(Boolean value)
     {
-        return Attribute.traditionalBoolean("nohref", value);
+        return Attribute.traditionalBoolean(NOHREF_NAME, value);
     }
 
+    private static final AttributeName ONBLUR_NAME = AttributeName.register("onblur");
+
     public static Attribute Onblur(String value)
     {
-        return Attribute.quotedString("onblur", value);
+        return Attribute.quotedString(ONBLUR_NAME, value);
     }
 
+    private static final AttributeName ONCHANGE_NAME = AttributeName.register("onchange");
+
     public static Attribute Onchange(String value)
     {
-        return Attribute.quotedString("onchange", value);
+        return Attribute.quotedString(ONCHANGE_NAME, value);
     }
 
+    private static final AttributeName ONCLICK_NAME = AttributeName.register("onclick");
+
     public static Attribute Onclick(String value)
     {
-        return Attribute.quotedString("onclick", value);
+        return Attribute.quotedString(ONCLICK_NAME, value);
     }
 
+    private static final AttributeName ONDBLCLICK_NAME = AttributeName.register("ondblclick");
+
     public static Attribute Ondblclick(String value)
     {
-        return Attribute.quotedString("ondblclick", value);
+        return Attribute.quotedString(ONDBLCLICK_NAME, value);
     }
 
+    private static final AttributeName ONFOCUS_NAME = AttributeName.register("onfocus");
+
     public static Attribute Onfocus(String value)
     {
-        return Attribute.quotedString("onfocus", value);
+        return Attribute.quotedString(ONFOCUS_NAME, value);
     }
 
+    private static final AttributeName ONKEYDOWN_NAME = AttributeName.register("onkeydown");
+
     public static Attribute Onkeydown(String value)
     {
-        return Attribute.quotedString("onkeydown", value);
+        return Attribute.quotedString(ONKEYDOWN_NAME, value);
     }
 
+    private static final AttributeName ONKEYPRESS_NAME = AttributeName.register("onkeypress");
+
     public static Attribute Onkeypress(String value)
     {
-        return Attribute.quotedString("onkeypress", value);
+        return Attribute.quotedString(ONKEYPRESS_NAME, value);
     }
 
+    private static final AttributeName ONKEYUP_NAME = AttributeName.register("onkeyup");
+
     public static Attribute Onkeyup(String value)
     {
-        return Attribute.quotedString("onkeyup", value);
+        return Attribute.quotedString(ONKEYUP_NAME, value);
     }
 
+    private static final AttributeName ONLOAD_NAME = AttributeName.register("onload");
+
     public static Attribute Onload(String value)
     {
-        return Attribute.quotedString("onload", value);
+        return Attribute.quotedString(ONLOAD_NAME, value);
     }
 
+    private static final AttributeName ONMOUSEDOWN_NAME = AttributeName.register("onmousedown");
+
     public static Attribute Onmousedown(String value)
     {
-        return Attribute.quotedString("onmousedown", value);
+        return Attribute.quotedString(ONMOUSEDOWN_NAME, value);
     }
 
+    private static final AttributeName ONMOUSEMOVE_NAME = AttributeName.register("onmousemove");
+
     public static Attribute Onmousemove(String value)
     {
-        return Attribute.quotedString("onmousemove", value);
+        return Attribute.quotedString(ONMOUSEMOVE_NAME, value);
     }
 
+    private static final AttributeName ONMOUSEOUT_NAME = AttributeName.register("onmouseout");
+
     public static Attribute Onmouseout(String value)
     {
-        return Attribute.quotedString("onmouseout", value);
+        return Attribute.quotedString(ONMOUSEOUT_NAME, value);
     }
 
+    private static final AttributeName ONMOUSEOVER_NAME = AttributeName.register("onmouseover");
+
     public static Attribute Onmouseover(String value)
     {
-        return Attribute.quotedString("onmouseover", value);
+        return Attribute.quotedString(ONMOUSEOVER_NAME, value);
     }
 
+    private static final AttributeName ONMOUSEUP_NAME = AttributeName.register("onmouseup");
+
     public static Attribute Onmouseup(String value)
     {
-        return Attribute.quotedString("onmouseup", value);
+        return Attribute.quotedString(ONMOUSEUP_NAME, value);
     }
 
+    private static final AttributeName ONRESET_NAME = AttributeName.register("onreset");
+
     public static Attribute Onreset(String value)
     {
-        return Attribute.quotedString("onreset", value);
+        return Attribute.quotedString(ONRESET_NAME, value);
     }
 
+    private static final AttributeName ONSELECT_NAME = AttributeName.register("onselect");
+
     public static Attribute Onselect(String value)
     {
-        return Attribute.quotedString("onselect", value);
+        return Attribute.quotedString(ONSELECT_NAME, value);
     }
 
+    private static final AttributeName ONSUBMIT_NAME = AttributeName.register("onsubmit");
+
     public static Attribute Onsubmit(String value)
     {
-        return Attribute.quotedString("onsubmit", value);
+        return Attribute.quotedString(ONSUBMIT_NAME, value);
     }
 
+    private static final AttributeName ONUNLOAD_NAME = AttributeName.register("onunload");
+
     public static Attribute Onunload(String value)
     {
-        return Attribute.quotedString("onunload", value);
+        return Attribute.quotedString(ONUNLOAD_NAME, value);
     }
 
+    private static final AttributeName PROFILE_NAME = AttributeName.register("profile");
+
     public static Attribute Profile(String value)
     {
-        return Attribute.quotedString("profile", value);
+        return Attribute.quotedString(PROFILE_NAME, value);
     }
 
+    private static final AttributeName READONLY_NAME = AttributeName.register("readonly");
+
     public static Attribute Readonly()
     {
-        return Attribute.traditionalBoolean("readonly", true);
+        return Attribute.traditionalBoolean(READONLY_NAME, true);
     }
 
     public static Attribute Readonly(Boolean value)
     {
-        return Attribute.traditionalBoolean("readonly", value);
+        return Attribute.traditionalBoolean(READONLY_NAME, value);
     }
 
+    private static final AttributeName REL_NAME = AttributeName.register("rel");
+
     public static Attribute Rel(String value)
     {
-        return Attribute.quotedString("rel", value);
+        return Attribute.enumerated(REL_NAME, value);
     }
 
+    private static final AttributeName REV_NAME = AttributeName.register("rev");
+
     public static Attribute Rev(String value)
     {
-        return Attribute.quotedString("rev", value);
+        return Attribute.enumerated(REV_NAME, value);
     }
 
+    private static final AttributeName ROWS_NAME = AttributeName.register("rows");
+
     public static Attribute Rows(Integer value)
     {
-        return Attribute.quotedString("rows", value);
+        return Attribute.quotedString(ROWS_NAME, value);
     }
 
+    private static final AttributeName ROWSPAN_NAME = AttributeName.register("rowspan");
+
     public static Attribute Rowspan(Integer value)
     {
-        return Attribute.quotedString("rowspan", value);
+        return Attribute.quotedString(ROWSPAN_NAME, value);
     }
 
+    private static final AttributeName RULES_NAME = AttributeName.register("rules");
+
     public static Attribute Rules(String value)
     {
-        return Attribute.quotedString("rules", value);
+        return Attribute.enumerated(RULES_NAME, value);
     }
 
+    private static final AttributeName SCHEME_NAME = AttributeName.register("scheme");
+
     public static Attribute Scheme(String value)
     {
-        return Attribute.quotedString("scheme", value);
+        return Attribute.quotedString(SCHEME_NAME, value);
     }
 
+    private static final AttributeName SCOPE_NAME = AttributeName.register("scope");
+
     public static Attribute Scope(String value)
     {
-        return Attribute.quotedString("scope", value);
+        return Attribute.enumerated(SCOPE_NAME, value);
     }
 
+    private static final AttributeName SELECTED_NAME = AttributeName.register("selected");
+
     public static Attribute Selected()
     {
-        return Attribute.traditionalBoolean("selected", true);
+        return Attribute.traditionalBoolean(SELECTED_NAME, true);
     }
 
     public static Attribute Selected(Boolean value)
     {
-        return Attribute.traditionalBoolean("selected", value);
+        return Attribute.traditionalBoolean(SELECTED_NAME, value);
     }
 
+    private static final AttributeName SHAPE_NAME = AttributeName.register("shape");
+
     public static Attribute Shape(String value)
     {
-        return Attribute.quotedString("shape", value);
+        return Attribute.enumerated(SHAPE_NAME, value);
     }
 
+    private static final AttributeName SIZE_NAME = AttributeName.register("size");
+
     public static Attribute Size(String value)
     {
-        return Attribute.quotedString("size", value);
+        return Attribute.quotedString(SIZE_NAME, value);
     }
 
     public static Attribute Size(Integer value)
     {
-        return Attribute.quotedString("size", value);
+        return Attribute.quotedString(SIZE_NAME, value);
     }
 
+    private static final AttributeName SPAN_NAME = AttributeName.register("span");
+
     public static Attribute Span(Integer value)
     {
-        return Attribute.quotedString("span", value);
+        return Attribute.quotedString(SPAN_NAME, value);
     }
 
+    private static final AttributeName SRC_NAME = AttributeName.register("src");
+
     public static Attribute Src(String value)
     {
-        return Attribute.quotedString("src", value);
+        return Attribute.quotedString(SRC_NAME, value);
     }
 
+    private static final AttributeName STANDBY_NAME = AttributeName.register("standby");
+
     public static Attribute Standby(String value)
     {
-        return Attribute.quotedString("standby", value);
+        return Attribute.quotedString(STANDBY_NAME, value);
     }
 
+    private static final AttributeName STYLE_NAME = AttributeName.register("style");
+
     public static Attribute Style(String value)
     {
-        return Attribute.quotedString("style", value);
+        return Attribute.quotedString(STYLE_NAME, value);
     }
 
+    private static final AttributeName SUMMARY_NAME = AttributeName.register("summary");
+
     public static Attribute Summary(String value)
     {
-        return Attribute.quotedString("summary", value);
+        return Attribute.quotedString(SUMMARY_NAME, value);
     }
 
+    private static final AttributeName TABINDEX_NAME = AttributeName.register("tabindex");
+
     public static Attribute Tabindex(Integer value)
     {
-        return Attribute.quotedString("tabindex", value);
+        return Attribute.quotedString(TABINDEX_NAME, value);
     }
 
+    private static final AttributeName TITLE_NAME = AttributeName.register("title");
+
     public static Attribute Title(String value)
     {
-        return Attribute.quotedString("title", value);
+        return Attribute.quotedString(TITLE_NAME, value);
     }
 
+    private static final AttributeName TYPE_NAME = AttributeName.register("type");
+
     public static Attribute Type(String value)
     {
-        return Attribute.quotedString("type", value);
+        return Attribute.enumerated(TYPE_NAME, value);
     }
 
+    private static final AttributeName USEMAP_NAME = AttributeName.register("usemap");
+
     public static Attribute Usemap(String value)
     {
-        return Attribute.quotedString("usemap", value);
+        return Attribute.quotedString(USEMAP_NAME, value);
     }
 
+    private static final AttributeName VALIGN_NAME = AttributeName.register("valign");
+
     public static Attribute Valign(String value)
     {
-        return Attribute.quotedString("valign", value);
+        return Attribute.enumerated(VALIGN_NAME, value);
     }
 
+    private static final AttributeName VALUE_NAME = AttributeName.register("value");
+
     public static Attribute Value(String value)
     {
-        return Attribute.quotedString("value", value);
+        return Attribute.quotedString(VALUE_NAME, value);
     }
 
+    private static final AttributeName VALUETYPE_NAME = AttributeName.register("valuetype");
+
     public static Attribute Valuetype(String value)
     {
-        return Attribute.quotedString("valuetype", value);
+        return Attribute.enumerated(VALUETYPE_NAME, value);
     }
 
+    private static final AttributeName WIDTH_NAME = AttributeName.register("width");
+
     public static Attribute Width(String value)
     {
-        return Attribute.quotedString("width", value);
+        return Attribute.quotedString(WIDTH_NAME, value);
     }
 
     public static final String _AElig = String.valueOf((char) 198);
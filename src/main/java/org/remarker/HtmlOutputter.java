@@ -16,14 +16,34 @@
 
 package org.remarker;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import org.remarker.dom.*;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Objects.requireNonNull;
 import static org.remarker.dom.BreakStyle.*;
 import static org.remarker.dom.ContentModel.*;
 
-public final class HtmlOutputter<X extends Exception>
+public final class HtmlOutputter<X extends Exception> implements AutoCloseable
 {
     @FunctionalInterface
     public interface BufferConsumer<X extends Exception>
@@ -31,331 +51,2002 @@ public final class HtmlOutputter<X extends Exception>
         void accept(char[] buffer, int offset, int length) throws X;
     }
 
+    @FunctionalInterface
+    public interface ByteConsumer<X extends Exception>
+    {
+        void accept(byte[] buffer, int offset, int length) throws X;
+    }
+
+    public enum Format
+    {
+        /**
+         * Puts block elements on their own lines and indents their contents.
+         */
+        PRETTY,
+
+        /**
+         * Leaves out the indentation and the line breaks around block elements, which don't affect
+         * rendering. Line breaks within text are kept, as are those next to text around elements
+         * such as DEL and SCRIPT, which browsers lay out inline or not at all, and PRE and TEXTAREA
+         * are written exactly as they are with {@link #PRETTY}.
+         */
+        MINIFIED,
+
+        /**
+         * Like {@link #MINIFIED}, also leaving out the end tags that the HTML syntax allows to be
+         * omitted given the element's next sibling and parent.
+         */
+        MINIFIED_OMITTING_END_TAGS,
+    }
+
+    /**
+     * The exact size of what an outputter produces for some contents.
+     */
+    public static final class Size
+    {
+        private final long chars;
+        private final long utf8Bytes;
+
+        private Size(long chars, long utf8Bytes)
+        {
+            this.chars = chars;
+            this.utf8Bytes = utf8Bytes;
+        }
+
+        public long getChars()
+        {
+            return chars;
+        }
+
+        public long getUtf8Bytes()
+        {
+            return utf8Bytes;
+        }
+
+        @Override
+        public String toString()
+        {
+            return chars + " chars, " + utf8Bytes + " UTF-8 bytes";
+        }
+    }
+
+    /**
+     * Remembers the sizes of measured elements for as long as the elements are in use, so that
+     * measuring a subtree again in the same indentation and format only takes a lookup. Each
+     * element only keeps the size from the last context that it was measured in. Elements with
+     * deferred contents or text read from its source are measured again every time. Safe to
+     * share between threads.
+     */
+    public static final class SizeCache
+    {
+        private final Map<Element, CachedSize> sizes = Collections.synchronizedMap(new WeakHashMap<>());
+
+        /**
+         * Like {@link HtmlOutputter#measure}, using and filling this cache.
+         */
+        public Size measure(Format format, Object... contents)
+        {
+            return HtmlOutputter.measure(format, this, contents);
+        }
+    }
+
+    private static final class CachedSize
+    {
+        final long context;
+        final long chars;
+        final long bytes;
+        final EOL eol;
+
+        CachedSize(long context, long chars, long bytes, EOL eol)
+        {
+            this.context = context;
+            this.chars = chars;
+            this.bytes = bytes;
+            this.eol = eol;
+        }
+    }
+
     private enum EOL
     {
         NO, CR, LF, TAG,
     }
 
-    private final BufferConsumer<X> consumer;
+    private static final int BUFFER_SIZE = 8192;
+    private static final TagName HTML_TAG_NAME = TagName.register("HTML");
+
+    private final Sink<X> sink;
+    private final boolean minified;
+    private final boolean omitEndTags;
+    private final Predicate<? super Element> flushAfter;
     private boolean nothingWritten = true;
     private EOL eol = EOL.TAG;
     private int indentLevel = 0;
     private int indentSuppressionLevel = 0;
-    private char[] buffer = new char[8192];
-    private int index = 0;
+    // set while idle in a pool
+    private boolean released = false;
+    private final char[] scratch = new char[512];
+    private byte[] byteScratch = null;
+    // only set when measuring
+    private CountingSink counter = null;
+    private SizeCache sizeCache = null;
+    // only set when compiling a template
+    private TemplateCompiler compiler = null;
+    // only set while outputting a template
+    private Template.Bound bound = null;
 
     public HtmlOutputter(BufferConsumer<X> consumer)
     {
-        this.consumer = consumer;
+        this(consumer, Format.PRETTY);
     }
 
-    public void output(Object... contents) throws X
+    public HtmlOutputter(BufferConsumer<X> consumer, Format format)
     {
-        dispatch(Html.asHtml(contents).getContents());
-        flush();
+        this(new CharSink<>(consumer), format, null);
     }
 
-    private void dispatch(Iterable<Content> contents) throws X
+    /**
+     * Creates an outputter that encodes its output as UTF-8 while rendering, producing exactly
+     * the same bytes as encoding the output of {@link #HtmlOutputter(BufferConsumer)} would.
+     */
+    public static <X extends Exception> HtmlOutputter<X> utf8(ByteConsumer<X> consumer)
     {
-        for (Content content : contents)
+        return utf8(consumer, Format.PRETTY);
+    }
+
+    public static <X extends Exception> HtmlOutputter<X> utf8(ByteConsumer<X> consumer, Format format)
+    {
+        return new HtmlOutputter<>(new Utf8Sink<>(consumer), format, null);
+    }
+
+    /**
+     * Creates an outputter that compresses its UTF-8 output with gzip as each buffer fills up,
+     * with each call to {@link #output} producing one complete gzip stream. After any element
+     * accepted by {@code flushAfter}, everything so far is flushed through the compressor so
+     * that the client can start parsing it. The compressor holds native memory until the
+     * outputter is {@linkplain #close closed}.
+     *
+     * @param level the compression level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+     * @param flushAfter which elements to flush after, or {@code null} to only flush at the end
+     */
+    public static <X extends Exception> HtmlOutputter<X> gzip(ByteConsumer<X> consumer, Format format, int level,
+            Predicate<? super Element> flushAfter)
+    {
+        return new HtmlOutputter<>(new GzipSink<>(consumer, level), format, flushAfter);
+    }
+
+    /**
+     * Creates an outputter that encodes its UTF-8 output into pooled direct buffers, writing
+     * them to the channel all at once with a gathering write when the output is flushed or
+     * when 16 buffers of 64 KB have been filled. The channel must be in blocking mode.
+     */
+    public static HtmlOutputter<IOException> channel(WritableByteChannel channel, Format format)
+    {
+        return new HtmlOutputter<>(new ChannelSink(requireNonNull(channel, "channel")), format, null);
+    }
+
+    /**
+     * Computes exactly how many characters a new outputter in the given format would produce
+     * for the contents, and how many bytes they take in UTF-8, without keeping any of them.
+     * This is as much work as rendering; see {@link SizeCache} for measuring repeatedly.
+     */
+    public static Size measure(Format format, Object... contents)
+    {
+        return measure(format, null, contents);
+    }
+
+    /**
+     * Renders the contents into a string, just as a new outputter would output them, without
+     * going through a writer.
+     */
+    public static String render(Object... contents)
+    {
+        return render(Format.PRETTY, contents);
+    }
+
+    public static String render(Format format, Object... contents)
+    {
+        // Every buffer of output is copied twice: into a String chunk, which is as compact as the
+        // final string, and then into the final string, which String.join allocates at its exact
+        // size. Appending to one StringBuilder copies as often, while it regrows and then in
+        // toString, and allocates about twice as much.
+        List<String> chunks = new ArrayList<>();
+        new HtmlOutputter<RuntimeException>((buffer, offset, length) -> chunks.add(new String(buffer, offset, length)),
+                format).output(contents);
+        return chunks.size() == 1 ? chunks.get(0) : String.join("", chunks);
+    }
+
+    /**
+     * Renders the contents once, as they come out on a new line at the given indentation level,
+     * and keeps the result with them. Outputting the frozen contents in that same context, in
+     * the same format, then copies the result in bulk, and anywhere else renders them as usual,
+     * so the output is always the same as for the contents themselves. Contents with text that
+     * is read from its source when output, such as {@link Html#text(CharSequence)}, aren't
+     * rendered in advance, and are always rendered as usual.
+     *
+     * @throws IllegalArgumentException if the contents include deferred contents
+     */
+    public static Frozen freeze(Format format, int indentLevel, Object... contents)
+    {
+        Fragment fragment = Html.asHtml(contents);
+        if (fragment.hasMutableText())
+        {
+            return Frozen.unsafe(fragment, TrustedHtml.unsafe(""), -1);
+        }
+        StringBuilder html = new StringBuilder();
+        HtmlOutputter<RuntimeException> outputter = new HtmlOutputter<>(html::append, format);
+        outputter.indentLevel = indentLevel;
+        long context = outputter.contextFor(fragment.getContents(), null, null);
+        outputter.dispatch(fragment.getContents(), null, null);
+        outputter.flush();
+        if (html.length() > 0 && Character.isLowSurrogate(html.charAt(0)))
         {
-            dispatch(content);
+            // it would pair up with a high surrogate left over from whatever comes before
+            context = -1;
         }
+        return Frozen.unsafe(fragment, TrustedHtml.unsafe(html.toString()), context << 2 | outputter.eol.ordinal());
     }
 
-    private void dispatch(Content content) throws X
+    /**
+     * Renders the skeleton once for each way that the contents of a slot can leave the end of
+     * the last line, so that whatever a slot is filled with, the chunk after it was rendered
+     * starting from the same state.
+     */
+    static Template compile(Format format, Fragment skeleton)
     {
-        if (content instanceof Element)
+        List<Content> contents = skeleton.getContents();
+        EOL[] eols = EOL.values();
+        TemplateCompiler[] compilers = new TemplateCompiler[eols.length];
+        long context = 0;
+        for (EOL slotEol : eols)
         {
-            element((Element) content);
+            TemplateCompiler compiler = new TemplateCompiler(slotEol);
+            HtmlOutputter<RuntimeException> outputter = new HtmlOutputter<>(compiler.html::append, format);
+            outputter.compiler = compiler;
+            context = outputter.contextFor(contents, null, null);
+            outputter.dispatch(contents, null, null);
+            compiler.cut(outputter);
+            compilers[slotEol.ordinal()] = compiler;
         }
-        else
+
+        TemplateCompiler compiler = compilers[0];
+        Template.Position[] positions = new Template.Position[compiler.positions.size()];
+        for (int i = 0; i < positions.length; i++)
         {
-            text((Text) content);
+            Template.Position position = compiler.positions.get(i);
+            Template.Chunk[] following = new Template.Chunk[eols.length];
+            for (int j = 0; j < eols.length; j++)
+            {
+                following[j] = compilers[j].chunks.get(i + 1);
+                for (int k = 0; k < j; k++)
+                {
+                    if (following[k].markup.toString().equals(following[j].markup.toString())
+                            && following[k].eol == following[j].eol)
+                    {
+                        following[j] = following[k];
+                        break;
+                    }
+                }
+            }
+            positions[i] = new Template.Position(position.slot, position.parent, position.next,
+                    position.indentLevel, position.indentSuppressionLevel, following);
         }
+        boolean exact = compiler.exact && !skeleton.hasMutableText();
+        return new Template(skeleton, compiler.slots, exact ? context : -1, compiler.chunks.get(0), positions);
     }
 
-    private void element(Element element) throws X
+    /**
+     * Cuts the output into chunks at each slot, and then carries on as if the slot's contents
+     * had left the end of the last line the given way.
+     */
+    private static final class TemplateCompiler
     {
-        if (element.getName().equals("HTML") && nothingWritten)
+        final EOL slotEol;
+        final StringBuilder html = new StringBuilder();
+        List<Element> elements = new ArrayList<>();
+        final List<Template.Chunk> chunks = new ArrayList<>();
+        final List<Slot<?>> slots = new ArrayList<>();
+        final List<Template.Position> positions = new ArrayList<>();
+        boolean slotBeforeAnything = false;
+        boolean exact = true;
+
+        TemplateCompiler(EOL slotEol)
         {
-            append("<!DOCTYPE HTML>\r\n");
+            this.slotEol = slotEol;
         }
-        BreakStyle breakStyle = element.getBreakStyle();
-        ContentModel contentModel = element.getContentModel();
-        boolean hasNonInlineContents = hasNonInlineContents(element.getContents());
-        boolean suppressIndentation = breakStyle == PRE || breakStyle == TEXTAREA;
-        boolean increaseIndentation = !suppressIndentation && hasNonInlineContents;
-        boolean newLinesOutside = breakStyle == BLOCK || breakStyle == PRE;
-        boolean newLineAfterStart = hasNonInlineContents && breakStyle != INLINE;
-        boolean newLineBeforeEnd = newLineAfterStart && breakStyle == BLOCK;
-        if (newLinesOutside)
+
+        <X extends Exception> void slot(HtmlOutputter<X> outputter, Slot<?> slot, Element parent, Content next) throws X
         {
-            newLine(EOL.TAG);
+            cut(outputter);
+            int index = slots.indexOf(slot);
+            if (index == -1)
+            {
+                index = slots.size();
+                slots.add(slot);
+            }
+            positions.add(new Template.Position(index, parent, next, outputter.indentLevel,
+                    outputter.indentSuppressionLevel, null));
+            // whether the slot writes anything decides whether a later HTML element gets a DOCTYPE
+            slotBeforeAnything |= outputter.nothingWritten;
+            outputter.eol = slotEol;
         }
-        raw('<');
-        raw(element.getName());
-        for (Attribute attribute : element.getAttributes())
+
+        <X extends Exception> void cut(HtmlOutputter<X> outputter) throws X
         {
-            attribute(attribute, element);
+            outputter.sink.flush();
+            String chunk = html.toString();
+            html.setLength(0);
+            chunks.add(new Template.Chunk(TrustedHtml.unsafe(chunk).getMarkup(),
+                    chunk.isEmpty() ? -1 : outputter.eol.ordinal(), elements.toArray(new Element[0])));
+            elements = new ArrayList<>();
         }
-        if (contentModel == VOID)
+    }
+
+    private static Size measure(Format format, SizeCache sizeCache, Object[] contents)
+    {
+        CountingSink counter = new CountingSink();
+        HtmlOutputter<RuntimeException> outputter = new HtmlOutputter<>(counter, format, null);
+        outputter.counter = counter;
+        outputter.sizeCache = sizeCache;
+        outputter.output(contents);
+        return new Size(counter.chars, counter.bytes);
+    }
+
+    private HtmlOutputter(Sink<X> sink, Format format, Predicate<? super Element> flushAfter)
+    {
+        this.sink = sink;
+        this.minified = requireNonNull(format, "format") != Format.PRETTY;
+        this.omitEndTags = format == Format.MINIFIED_OMITTING_END_TAGS;
+        this.flushAfter = flushAfter;
+    }
+
+    /**
+     * Discards anything not yet passed to the consumer and starts over as if newly created, so
+     * that the next {@link #output} begins a new document. Useful after an output failed.
+     */
+    public void reset()
+    {
+        sink.reset();
+        nothingWritten = true;
+        eol = EOL.TAG;
+        indentLevel = 0;
+        indentSuppressionLevel = 0;
+    }
+
+    /**
+     * Resets this outputter and sends all further output to the given consumer, so that its
+     * buffers can be reused for another document.
+     *
+     * @throws IllegalStateException if this outputter wasn't created with a {@link BufferConsumer}
+     */
+    public HtmlOutputter<X> retarget(BufferConsumer<X> consumer)
+    {
+        sink.retarget(requireNonNull(consumer, "consumer"));
+        reset();
+        released = false;
+        return this;
+    }
+
+    /**
+     * Like {@link #retarget(BufferConsumer)}, for outputters created by {@link #utf8} or {@link #gzip}.
+     *
+     * @throws IllegalStateException if this outputter wasn't created with a {@link ByteConsumer}
+     */
+    public HtmlOutputter<X> retargetBytes(ByteConsumer<X> consumer)
+    {
+        sink.retargetBytes(requireNonNull(consumer, "consumer"));
+        reset();
+        released = false;
+        return this;
+    }
+
+    /**
+     * Frees the native memory of the compressor used by an outputter created by {@link #gzip},
+     * without flushing anything, after which the outputter can't be used. Other outputters
+     * hold nothing that needs to be freed, so closing them does nothing.
+     */
+    @Override
+    public void close()
+    {
+        sink.close();
+    }
+
+    /**
+     * Resets this outputter and points it at a consumer that discards everything, so that an
+     * idle outputter doesn't hold on to the consumer of the document it last wrote.
+     *
+     * @throws IllegalStateException if it was already released and not retargeted since
+     */
+    void release()
+    {
+        if (released)
         {
-            raw(">");
+            throw new IllegalStateException("Outputter was already released");
         }
-        else
-        {
-            raw('>');
-            if (suppressIndentation)
-            {
-                indentSuppressionLevel++;
-            }
-            if (increaseIndentation)
-            {
-                indentLevel++;
-            }
-            if (newLineAfterStart)
-            {
-                newLine(EOL.TAG);
-            }
+        sink.detach();
+        reset();
+        released = true;
+    }
 
-            if (contentModel == RAW_TEXT)
-            {
-                dispatchRawText(element.getContents());
-            }
-            else
-            {
-                dispatch(element.getContents());
-            }
+    public void output(Object... contents) throws X
+    {
+        dispatch(Html.asHtml(contents).getContents(), null, null);
+        flush();
+    }
 
-            if (newLineBeforeEnd)
-            {
-                newLine(EOL.TAG);
-            }
-            if (increaseIndentation)
+    /**
+     * Outputs the template with its slots filled in, copying the chunks between the slots if
+     * this outputter is in the same state and format that the template was compiled for.
+     */
+    public void output(Template.Bound bound) throws X
+    {
+        Template template = bound.getTemplate();
+        List<Content> skeleton = template.skeleton.getContents();
+        this.bound = bound;
+        try
+        {
+            if (template.context != contextFor(skeleton, null, null))
             {
-                indentLevel--;
+                dispatch(skeleton, null, null);
             }
-            raw("</");
-            raw(element.getName());
-            raw('>');
-            if (suppressIndentation)
+            else
             {
-                indentSuppressionLevel--;
+                int outerIndentLevel = indentLevel;
+                int outerIndentSuppressionLevel = indentSuppressionLevel;
+                copy(template.first);
+                for (Template.Position position : template.positions)
+                {
+                    indentLevel = position.indentLevel;
+                    indentSuppressionLevel = position.indentSuppressionLevel;
+                    deferred(bound.get(position.slot), position.parent, position.next);
+                    copy(position.following[eol.ordinal()]);
+                }
+                indentLevel = outerIndentLevel;
+                indentSuppressionLevel = outerIndentSuppressionLevel;
             }
         }
-        if (newLinesOutside)
+        finally
         {
-            newLine(EOL.TAG);
+            this.bound = null;
         }
+        flush();
     }
 
-    private boolean hasNonInlineContents(List<Content> children)
+    private void copy(Template.Chunk chunk) throws X
     {
-        for (Content child : children)
+        if (chunk.eol != -1)
         {
-            if (child instanceof Element)
-            {
-                Element element = (Element) child;
-                BreakStyle breakStyle = element.getBreakStyle();
-                if (breakStyle == BLOCK || breakStyle == PRE || hasNonInlineContents(element.getContents()))
-                {
-                    return true;
-                }
-            }
-            else
+            nothingWritten = false;
+            sink.append(chunk.markup);
+            eol = EOL.values()[chunk.eol];
+        }
+        if (flushAfter != null)
+        {
+            for (Element element : chunk.elements)
             {
-                Text text = (Text) child;
-                if (hasLineBreaks(text.getValue()))
+                if (flushAfter.test(element))
                 {
-                    return true;
+                    sink.syncFlush();
+                    break;
                 }
             }
         }
-        return false;
     }
 
-    private boolean hasLineBreaks(String text)
+    private void dispatch(List<Content> contents, Element parent, Content after) throws X
     {
-        return text.indexOf('\r') != -1 || text.indexOf('\n') != -1;
+        int n = contents.size();
+        for (int i = 0; i < n; i++)
+        {
+            content(contents.get(i), parent, i + 1 < n ? leading(contents, i + 1, after) : after);
+        }
     }
 
-    private void dispatchRawText(List<Content> contents) throws X
+    private void content(Content content, Element parent, Content next) throws X
     {
-        for (Content content : contents)
+        if (content instanceof Element)
         {
-            Text text = (Text) content;
-            String value = text.getValue();
-            int n = value.length();
-            for (int i = 0; i < n; i++)
-            {
-                int c = value.charAt(i);
-                if (c == '\r' || c == '\n')
-                {
-                    newLine(c == '\r' ? EOL.CR : EOL.LF);
-                }
-                else
-                {
-                    raw((char) c);
-                }
-            }
+            element((Element) content, parent, next);
+        }
+        else if (content instanceof Deferred)
+        {
+            deferred((Deferred) content, parent, next);
+        }
+        else if (content instanceof Frozen)
+        {
+            frozen((Frozen) content, parent, next);
+        }
+        else if (content instanceof TrustedHtml)
+        {
+            trustedHtml((TrustedHtml) content);
+        }
+        else if (content instanceof Slot)
+        {
+            slot((Slot<?>) content, parent, next);
+        }
+        else
+        {
+            text((Text) content);
         }
     }
 
-    private void text(Text text) throws X
+    /**
+     * What comes first from the contents starting at the given index, looking inside frozen
+     * contents, which is what an element before them is followed by.
+     */
+    private static Content leading(List<Content> contents, int from, Content after)
     {
-        escape(text.getValue(), false);
+        for (int i = from; i < contents.size(); i++)
+        {
+            Content content = contents.get(i);
+            if (!(content instanceof Frozen))
+            {
+                return content;
+            }
+            Content first = leading(((Frozen) content).getContents(), 0, null);
+            if (first != null)
+            {
+                return first;
+            }
+        }
+        return after;
     }
 
-    // The HTML syntax allows more than these characters in unquoted attribute values,
-    // but these are the most common and therefore a reasonably conservative set.
-    private static final Pattern UNQUOTED_VALUE_PATTERN = Pattern.compile("[A-Za-z0-9_.+-]+");
-
-    private void attribute(Attribute attribute, Element element) throws X
+    /**
+     * What comes last from the contents, looking inside frozen contents.
+     */
+    private static Content trailing(List<Content> contents)
     {
-        raw(" ");
-        raw(attribute.getName());
-        String value = attribute.getValue();
-        if (!value.isEmpty())
+        for (int i = contents.size() - 1; i >= 0; i--)
         {
-            if (UNQUOTED_VALUE_PATTERN.matcher(value).matches())
+            Content content = contents.get(i);
+            if (!(content instanceof Frozen))
             {
-                raw('=');
-                raw(value);
+                return content;
             }
-            else
+            Content last = trailing(((Frozen) content).getContents());
+            if (last != null)
             {
-                raw("=\"");
-                escape(value, true);
-                raw('"');
+                return last;
             }
         }
+        return null;
     }
 
-    private void raw(String string) throws X
+    /**
+     * Pulls the deferred contents one at a time, looking ahead by one so that end tags can be
+     * omitted just as for contents that were there all along.
+     */
+    private void deferred(Deferred deferred, Element parent, Content after) throws X
     {
-        if (string.length() != 0)
+        if (compiler != null)
         {
-            writeIndent();
-            append(string);
-            eol = EOL.NO;
+            throw new IllegalArgumentException("Template must not have deferred contents");
+        }
+        Iterator<Content> contents = deferred.iterator();
+        Content next = contents.hasNext() ? contents.next() : null;
+        while (next != null)
+        {
+            Content content = next;
+            next = contents.hasNext() ? contents.next() : null;
+            content(content, parent, next != null ? leading(singletonList(next), 0, next) : after);
         }
     }
 
-    private void raw(char character) throws X
+    /**
+     * Copies the frozen HTML if it was rendered in the same context as the current one, which
+     * includes whether the end tag of its last element is omitted here, and otherwise renders
+     * the contents.
+     */
+    private void frozen(Frozen frozen, Element parent, Content after) throws X
     {
-        writeIndent();
-        append(character);
-        eol = EOL.NO;
+        List<Content> contents = frozen.getContents();
+        long context = frozen.getContext();
+        if (context >>> 2 != contextFor(contents, parent, after)
+                || counter != null && counter.highSurrogate != 0)
+        {
+            dispatch(contents, parent, after);
+            return;
+        }
+        Markup markup = frozen.getHtml().getMarkup();
+        if (markup.length() > 0)
+        {
+            nothingWritten = false;
+            sink.append(markup);
+            eol = EOL.values()[(int) (context & 3)];
+        }
+        if (flushAfter != null && anyFlushAfter(contents))
+        {
+            // once for the whole copy, which decompresses to the same output
+            sink.syncFlush();
+        }
     }
 
-    private void writeIndent() throws X
+    private boolean anyFlushAfter(List<Content> contents)
     {
-        if (eol != EOL.NO && indentLevel > 0 && indentSuppressionLevel == 0)
+        for (Content content : contents)
         {
-            for (int i = 0; i < indentLevel; i++)
+            if (content instanceof Element
+                    ? flushAfter.test((Element) content) || anyFlushAfter(((Element) content).getContents())
+                    : content instanceof Frozen && anyFlushAfter(((Frozen) content).getContents()))
             {
-                append("  ");
+                return true;
             }
-            eol = EOL.NO;
         }
+        return false;
     }
 
-    private void newLine(EOL reason) throws X
+    private void slot(Slot<?> slot, Element parent, Content next) throws X
     {
-        if (reason == EOL.TAG && eol != EOL.TAG
-                || reason == EOL.CR
-                || reason == EOL.LF && eol != EOL.CR)
+        if (compiler != null)
         {
-            append("\r\n");
+            compiler.slot(this, slot, parent, next);
+        }
+        else if (bound != null)
+        {
+            deferred(bound.get(slot), parent, next);
+        }
+        else
+        {
+            throw new IllegalArgumentException(slot + " must be filled by a template");
         }
-        eol = reason;
     }
 
-    private void append(String s) throws X
+    private long contextFor(List<Content> contents, Element parent, Content after)
     {
-        int n = s.length();
-        for (int i = 0; i < n; i++)
-        {
-            append(s.charAt(i));
-        }
+        Content first = leading(contents, 0, null);
+        Content last = trailing(contents);
+        boolean doctype = nothingWritten && first instanceof Element && HTML_TAG_NAME.equals(((Element) first).getTagName());
+        boolean omitLastEndTag = omitEndTags && last instanceof Element
+                && isEndTagOptional((Element) last, parent, after);
+        boolean spacedAfterLast = last instanceof Element && isSpacedAfter((Element) last, parent, after);
+        return context(doctype, omitLastEndTag, spacedAfterLast);
     }
 
-    private void append(char c) throws X
+    /**
+     * Everything about the current state that can change how the same contents come out.
+     * Minified output outside of PRE and TEXTAREA isn't indented and only writes line breaks
+     * from text and around elements that aren't laid out as blocks, so there the indentation
+     * doesn't matter and the end of the last line only matters if it was a CR or there was no
+     * line break.
+     */
+    private long context(boolean nothingWritten, boolean omitEndTag, boolean spacedAfter)
     {
-        nothingWritten = false;
-        buffer[index++] = c;
-        if (index == buffer.length)
+        boolean flat = minified && indentSuppressionLevel == 0;
+        EOL lastEol = flat && eol != EOL.CR && eol != EOL.NO ? EOL.TAG : eol;
+        return (long) (flat ? 0 : indentLevel) << 8
+                | (spacedAfter ? 128 : 0)
+                | (indentSuppressionLevel > 0 ? 64 : 0)
+                | (minified ? 32 : 0)
+                | (omitEndTags ? 16 : 0)
+                | (nothingWritten ? 8 : 0)
+                | lastEol.ordinal() << 1
+                | (omitEndTag ? 1 : 0);
+    }
+
+    private void element(Element element, Element parent, Content next) throws X
+    {
+        boolean omitEndTag = omitEndTags && isEndTagOptional(element, parent, next);
+        boolean spacedAfter = isSpacedAfter(element, parent, next);
+        if (sizeCache != null && counter.highSurrogate == 0 && hasChildElements(element)
+                && !element.hasDeferredContents() && !element.hasMutableText())
         {
-            flush();
+            measureElement(element, omitEndTag, spacedAfter);
+        }
+        else
+        {
+            render(element, omitEndTag, spacedAfter);
         }
     }
 
-    private void flush() throws X
+    private static boolean hasChildElements(Element element)
     {
-        if (index > 0)
+        for (Content content : element.getContents())
         {
-            consumer.accept(buffer, 0, index);
-            index = 0;
+            if (content instanceof Element)
+            {
+                return true;
+            }
         }
+        return false;
     }
 
-    private void escape(String string, boolean inAttributeValue) throws X
+    /**
+     * Renders the element into the counter, unless it was already measured in the same context,
+     * in which case the cached size is counted instead.
+     */
+    private void measureElement(Element element, boolean omitEndTag, boolean spacedAfter) throws X
     {
-        int n = string.length();
-        for (int i = 0; i < n; i++)
+        long context = context(nothingWritten, omitEndTag, spacedAfter);
+        CachedSize cached = sizeCache.sizes.get(element);
+        if (cached != null && cached.context == context)
         {
-            int c = string.charAt(i);
-            if (inAttributeValue)
-            {
-              switch (c)
-              {
-              case '&':
-                  raw("&amp;");
-                  break;
-              case '"':
-                  raw("&quot;");
-                  break;
-              case '\r':
-              case '\n':
-                  numericCharacterReference(c);
-                  break;
-              default:
-                  raw((char) c);
-                  break;
-              }
+            counter.chars += cached.chars;
+            counter.bytes += cached.bytes;
+            if (cached.chars > 0)
+            {
+                nothingWritten = false;
+            }
+            eol = cached.eol;
+            return;
+        }
+        long chars = counter.chars;
+        long bytes = counter.bytes;
+        render(element, omitEndTag, spacedAfter);
+        if (counter.highSurrogate == 0)
+        {
+            sizeCache.sizes.put(element, new CachedSize(context, counter.chars - chars, counter.bytes - bytes, eol));
+        }
+    }
+
+    /**
+     * @param spacedAfter whether to keep the line break after the element in minified output
+     */
+    private void render(Element element, boolean omitEndTag, boolean spacedAfter) throws X
+    {
+        if (HTML_TAG_NAME.equals(element.getTagName()) && nothingWritten)
+        {
+            if (compiler != null && compiler.slotBeforeAnything)
+            {
+                compiler.exact = false;
+            }
+            append(minified ? "<!DOCTYPE HTML>" : "<!DOCTYPE HTML>\r\n");
+        }
+        BreakStyle breakStyle = element.getBreakStyle();
+        ContentModel contentModel = element.getContentModel();
+        boolean hasNonInlineContents = element.hasNonInlineContents();
+        boolean suppressIndentation = breakStyle == PRE || breakStyle == TEXTAREA;
+        boolean increaseIndentation = !suppressIndentation && hasNonInlineContents;
+        boolean newLinesOutside = breakStyle == BLOCK || breakStyle == PRE;
+        boolean newLineAfterStart = hasNonInlineContents && breakStyle != INLINE;
+        boolean newLineBeforeEnd = newLineAfterStart && breakStyle == BLOCK;
+        if (newLinesOutside)
+        {
+            newLine(EOL.TAG, minified && SPACED.contains(element.getName()));
+        }
+        TagName tagName = element.getTagName();
+        List<Attribute> attributes = element.getAttributes();
+        if (attributes.isEmpty())
+        {
+            raw(tagName.getStartTag());
+        }
+        else
+        {
+            raw(tagName.getStartTagPrefix());
+            for (Attribute attribute : attributes)
+            {
+                attribute(attribute, element);
+            }
+            raw('>');
+        }
+        if (contentModel != VOID)
+        {
+            if (suppressIndentation)
+            {
+                indentSuppressionLevel++;
+            }
+            if (increaseIndentation)
+            {
+                indentLevel++;
+            }
+            if (newLineAfterStart)
+            {
+                newLine(EOL.TAG);
+            }
+
+            if (contentModel == RAW_TEXT)
+            {
+                dispatchRawText(element.getContents());
+            }
+            else
+            {
+                dispatch(element.getContents(), element, null);
+            }
+
+            if (newLineBeforeEnd)
+            {
+                newLine(EOL.TAG);
+            }
+            if (increaseIndentation)
+            {
+                indentLevel--;
+            }
+            if (!omitEndTag)
+            {
+                raw(tagName.getEndTag());
+            }
+            if (suppressIndentation)
+            {
+                indentSuppressionLevel--;
+            }
+        }
+        if (newLinesOutside)
+        {
+            newLine(EOL.TAG, spacedAfter);
+        }
+        if (flushAfter != null && flushAfter.test(element))
+        {
+            sink.syncFlush();
+        }
+        if (compiler != null)
+        {
+            compiler.elements.add(element);
+        }
+    }
+
+    // Block elements that browsers lay out inline.
+    private static final Set<String> LAID_OUT_INLINE = new HashSet<>(asList("DEL", "INS", "NOSCRIPT"));
+
+    // Those and the block elements that browsers don't show at all, so the line breaks around
+    // them are rendered as spaces between whatever is inline on either side, and minified
+    // output keeps them.
+    private static final Set<String> SPACED = new HashSet<>(asList("AREA", "BASE", "DEL", "INS", "LINK",
+            "META", "NOSCRIPT", "PARAM", "SCRIPT", "STYLE", "TITLE"));
+
+    // The elements that close an open P element when they start. TABLE is left out because
+    // it only does so in no-quirks mode, and the output might end up in a quirks mode document.
+    private static final Set<String> P_CLOSERS = new HashSet<>(asList("ADDRESS", "ARTICLE", "ASIDE",
+            "BLOCKQUOTE", "DETAILS", "DIV", "DL", "FIELDSET", "FIGCAPTION", "FIGURE", "FOOTER", "FORM",
+            "H1", "H2", "H3", "H4", "H5", "H6", "HEADER", "HGROUP", "HR", "MAIN", "MENU", "NAV", "OL", "P",
+            "PRE", "SECTION", "UL"));
+
+    // The elements in which a final P element must keep its end tag.
+    private static final Set<String> P_KEEPERS = new HashSet<>(asList("A", "AUDIO", "DEL", "INS", "MAP",
+            "NOSCRIPT", "VIDEO"));
+
+    /**
+     * Whether the line break after the element is rendered, as it is for one of the {@link #SPACED}
+     * elements that is followed by something inline, or by nothing inside an inline element.
+     * Anything that isn't known until it's output might be inline. Before an element that isn't
+     * shown, the line break is left to whatever comes after that one.
+     */
+    private boolean isSpacedAfter(Element element, Element parent, Content next)
+    {
+        if (!minified || !SPACED.contains(element.getName()))
+        {
+            return false;
+        }
+        if (next == null)
+        {
+            return parent != null && parent.getBreakStyle() == INLINE;
+        }
+        if (next instanceof Element)
+        {
+            BreakStyle breakStyle = ((Element) next).getBreakStyle();
+            return breakStyle == INLINE || breakStyle == TEXTAREA
+                    || LAID_OUT_INLINE.contains(((Element) next).getName());
+        }
+        return true;
+    }
+
+    /**
+     * Implements the rules for optional end tags from the HTML syntax, given that nothing is
+     * known about what follows the contents passed to {@link #output}.
+     *
+     * @see <a href="https://html.spec.whatwg.org/multipage/syntax.html#optional-tags">Optional tags</a>
+     */
+    private static boolean isEndTagOptional(Element element, Element parent, Content next)
+    {
+        String nextName = next instanceof Element ? ((Element) next).getName() : null;
+        boolean last = next == null && parent != null;
+        switch (element.getName())
+        {
+        case "HTML":
+        case "BODY":
+            return true;
+        case "HEAD":
+            return nextName != null;
+        case "CAPTION":
+        case "COLGROUP":
+            return nextName != null || last;
+        case "LI":
+            return "LI".equals(nextName) || last;
+        case "DT":
+            return "DT".equals(nextName) || "DD".equals(nextName);
+        case "DD":
+            return "DD".equals(nextName) || "DT".equals(nextName) || last;
+        case "P":
+            return P_CLOSERS.contains(nextName) || last && !P_KEEPERS.contains(parent.getName());
+        case "OPTGROUP":
+            return "OPTGROUP".equals(nextName) || last;
+        case "OPTION":
+            return "OPTION".equals(nextName) || "OPTGROUP".equals(nextName) || last;
+        case "THEAD":
+            return "TBODY".equals(nextName) || "TFOOT".equals(nextName);
+        case "TBODY":
+            return "TBODY".equals(nextName) || "TFOOT".equals(nextName) || last;
+        case "TFOOT":
+            return last;
+        case "TR":
+            return "TR".equals(nextName) || last;
+        case "TD":
+        case "TH":
+            return "TD".equals(nextName) || "TH".equals(nextName) || last;
+        default:
+            return false;
+        }
+    }
+
+    private void dispatchRawText(List<Content> contents) throws X
+    {
+        for (Content content : contents)
+        {
+            Text text = (Text) content;
+            String value = text.getValue();
+            int n = value.length();
+            int start = 0;
+            for (int i = 0; i < n; i++)
+            {
+                char c = value.charAt(i);
+                if (c == '\r' || c == '\n')
+                {
+                    raw(value, start, i);
+                    newLine(c == '\r' ? EOL.CR : EOL.LF);
+                    start = i + 1;
+                }
+            }
+            raw(value, start, n);
+        }
+    }
+
+    private void text(Text text) throws X
+    {
+        for (int i = 0, n = text.getPieceCount(); i < n; i++)
+        {
+            escape(text.getPiece(i), false);
+        }
+    }
+
+    private void trustedHtml(TrustedHtml html) throws X
+    {
+        Markup markup = html.getMarkup();
+        if (markup.length() > 0)
+        {
+            raw(markup);
+        }
+    }
+
+    // The HTML syntax allows more than these characters in unquoted attribute values,
+    // but these are the most common and therefore a reasonably conservative set.
+    private static final Pattern UNQUOTED_VALUE_PATTERN = Pattern.compile("[A-Za-z0-9_.+-]+");
+
+    private void attribute(Attribute attribute, Element element) throws X
+    {
+        AttributeName name = attribute.getAttributeName();
+        String value = attribute.getValue();
+        if (value.isEmpty())
+        {
+            raw(name.getPrefix());
+        }
+        else if (UNQUOTED_VALUE_PATTERN.matcher(value).matches())
+        {
+            raw(name.getAssignment());
+            raw(value);
+        }
+        else
+        {
+            raw(name.getQuotedAssignment());
+            escape(value, true);
+            raw('"');
+        }
+    }
+
+    private void raw(String string) throws X
+    {
+        if (string.length() != 0)
+        {
+            writeIndent();
+            append(string);
+            eol = EOL.NO;
+        }
+    }
+
+    private void raw(String string, int start, int end) throws X
+    {
+        if (start < end)
+        {
+            writeIndent();
+            nothingWritten = false;
+            sink.append(string, start, end);
+            eol = EOL.NO;
+        }
+    }
+
+    private void raw(char[] chars, int start, int end) throws X
+    {
+        if (start < end)
+        {
+            writeIndent();
+            nothingWritten = false;
+            sink.append(chars, start, end);
+            eol = EOL.NO;
+        }
+    }
+
+    private void rawLatin1(byte[] bytes, int start, int end) throws X
+    {
+        if (start < end)
+        {
+            writeIndent();
+            nothingWritten = false;
+            sink.appendLatin1(bytes, start, end);
+            eol = EOL.NO;
+        }
+    }
+
+    private void raw(Markup markup) throws X
+    {
+        writeIndent();
+        nothingWritten = false;
+        sink.append(markup);
+        eol = EOL.NO;
+    }
+
+    private void raw(char character) throws X
+    {
+        writeIndent();
+        append(character);
+        eol = EOL.NO;
+    }
+
+    private void writeIndent() throws X
+    {
+        if (eol != EOL.NO && indentLevel > 0 && indentSuppressionLevel == 0 && !minified)
+        {
+            for (int i = 0; i < indentLevel; i++)
+            {
+                append("  ");
+            }
+            eol = EOL.NO;
+        }
+    }
+
+    /**
+     * Like {@link #newLine(EOL)}, except that a line break that matters for rendering is kept
+     * in minified output, unless it comes right after a line break or a tag that pretty output
+     * would put on its own line, where it wouldn't be rendered anyway.
+     */
+    private void newLine(EOL reason, boolean rendered) throws X
+    {
+        if (rendered && eol == EOL.NO && indentSuppressionLevel == 0)
+        {
+            append("\r\n");
+        }
+        newLine(reason);
+    }
+
+    private void newLine(EOL reason) throws X
+    {
+        if (reason == EOL.TAG && minified && indentSuppressionLevel == 0)
+        {
+            eol = reason;
+            return;
+        }
+        if (reason == EOL.TAG && eol != EOL.TAG
+                || reason == EOL.CR
+                || reason == EOL.LF && eol != EOL.CR)
+        {
+            append("\r\n");
+        }
+        eol = reason;
+    }
+
+    private void append(String s) throws X
+    {
+        nothingWritten = false;
+        sink.append(s, 0, s.length());
+    }
+
+    private void append(char c) throws X
+    {
+        nothingWritten = false;
+        sink.append(c);
+    }
+
+    private void flush() throws X
+    {
+        sink.flush();
+    }
+
+    // Every character that needs escaping is below 64, so each set fits in the bits of a long.
+    // Line breaks in text are written as indented new lines rather than replaced.
+    private static final long TEXT_SPECIALS = bits('<', '>', '&', '\r', '\n');
+    private static final long ATTRIBUTE_VALUE_SPECIALS = bits('&', '"', '\r', '\n');
+    private static final char[][] ESCAPES = new char[64][];
+
+    static
+    {
+        ESCAPES['<'] = "&lt;".toCharArray();
+        ESCAPES['>'] = "&gt;".toCharArray();
+        ESCAPES['&'] = "&amp;".toCharArray();
+        ESCAPES['"'] = "&quot;".toCharArray();
+        ESCAPES['\r'] = "&#13;".toCharArray();
+        ESCAPES['\n'] = "&#10;".toCharArray();
+    }
+
+    private static long bits(char... characters)
+    {
+        long bits = 0;
+        for (char c : characters)
+        {
+            bits |= 1L << c;
+        }
+        return bits;
+    }
+
+    private void escape(CharSequence sequence, boolean inAttributeValue) throws X
+    {
+        if (sequence instanceof CompactString)
+        {
+            escape((CompactString) sequence, inAttributeValue);
+            return;
+        }
+        if (sequence instanceof CharBuffer && ((CharBuffer) sequence).hasArray())
+        {
+            // a slice of an array is escaped straight from the array
+            CharBuffer buffer = (CharBuffer) sequence;
+            int start = buffer.arrayOffset() + buffer.position();
+            escape(buffer.array(), start, start + buffer.remaining(), inAttributeValue);
+            return;
+        }
+        char[] chars = scratch;
+        int n = sequence.length();
+        for (int offset = 0; offset < n; offset += chars.length)
+        {
+            // Scanning a char[] is considerably faster than calling charAt for each character.
+            int length = Math.min(n - offset, chars.length);
+            getChars(sequence, offset, offset + length, chars);
+            escape(chars, 0, length, inAttributeValue);
+        }
+    }
+
+    private void escape(char[] chars, int from, int to, boolean inAttributeValue) throws X
+    {
+        long specials = inAttributeValue ? ATTRIBUTE_VALUE_SPECIALS : TEXT_SPECIALS;
+        int start = from;
+        for (int i = from; i < to; i++)
+        {
+            char c = chars[i];
+            if (c < 64 && (specials >>> c & 1) != 0)
+            {
+                if (!inAttributeValue && (c == '\r' || c == '\n'))
+                {
+                    raw(chars, start, i);
+                    newLine(c == '\r' ? EOL.CR : EOL.LF);
+                }
+                else
+                {
+                    writeIndent();
+                    nothingWritten = false;
+                    if (start < i)
+                    {
+                        sink.append(chars, start, i);
+                    }
+                    sink.append(ESCAPES[c], 0, ESCAPES[c].length);
+                    eol = EOL.NO;
+                }
+                start = i + 1;
+            }
+        }
+        raw(chars, start, to);
+    }
+
+    private void escape(CompactString string, boolean inAttributeValue) throws X
+    {
+        if (byteScratch == null)
+        {
+            byteScratch = new byte[scratch.length];
+        }
+        long specials = inAttributeValue ? ATTRIBUTE_VALUE_SPECIALS : TEXT_SPECIALS;
+        byte[] bytes = byteScratch;
+        int n = string.length();
+        for (int offset = 0; offset < n; offset += bytes.length)
+        {
+            int length = Math.min(n - offset, bytes.length);
+            string.getBytes(offset, offset + length, bytes, 0);
+            int start = 0;
+            for (int i = 0; i < length; i++)
+            {
+                int c = bytes[i] & 0xFF;
+                if (c < 64 && (specials >>> c & 1) != 0)
+                {
+                    if (!inAttributeValue && (c == '\r' || c == '\n'))
+                    {
+                        rawLatin1(bytes, start, i);
+                        newLine(c == '\r' ? EOL.CR : EOL.LF);
+                    }
+                    else
+                    {
+                        writeIndent();
+                        nothingWritten = false;
+                        if (start < i)
+                        {
+                            sink.appendLatin1(bytes, start, i);
+                        }
+                        sink.append(ESCAPES[c], 0, ESCAPES[c].length);
+                        eol = EOL.NO;
+                    }
+                    start = i + 1;
+                }
+            }
+            rawLatin1(bytes, start, length);
+        }
+    }
+
+    /**
+     * Copies characters in bulk from the kinds of sequences that can, and one at a time from
+     * any others.
+     */
+    private static void getChars(CharSequence sequence, int start, int end, char[] chars)
+    {
+        if (sequence instanceof String)
+        {
+            ((String) sequence).getChars(start, end, chars, 0);
+        }
+        else if (sequence instanceof StringBuilder)
+        {
+            ((StringBuilder) sequence).getChars(start, end, chars, 0);
+        }
+        else if (sequence instanceof StringBuffer)
+        {
+            ((StringBuffer) sequence).getChars(start, end, chars, 0);
+        }
+        else if (sequence instanceof CharBuffer)
+        {
+            CharBuffer buffer = ((CharBuffer) sequence).duplicate();
+            buffer.position(buffer.position() + start);
+            buffer.get(chars, 0, end - start);
+        }
+        else
+        {
+            for (int i = start; i < end; i++)
+            {
+                chars[i - start] = sequence.charAt(i);
+            }
+        }
+    }
+
+    private static abstract class Sink<X extends Exception>
+    {
+        abstract void append(char c) throws X;
+
+        abstract void append(String s, int start, int end) throws X;
+
+        abstract void append(char[] chars, int start, int end) throws X;
+
+        abstract void append(Markup markup) throws X;
+
+        abstract void appendLatin1(byte[] bytes, int start, int end) throws X;
+
+        /**
+         * Called at the end of each output.
+         */
+        abstract void flush() throws X;
+
+        /**
+         * Called at chosen points in the middle of the output.
+         */
+        void syncFlush() throws X
+        {
+            flush();
+        }
+
+        /**
+         * Discards anything written since the last flush.
+         */
+        abstract void reset();
+
+        void retarget(BufferConsumer<X> consumer)
+        {
+            throw new IllegalStateException("Outputter doesn't write to a BufferConsumer");
+        }
+
+        void retargetBytes(ByteConsumer<X> consumer)
+        {
+            throw new IllegalStateException("Outputter doesn't write to a ByteConsumer");
+        }
+
+        /**
+         * Lets go of the consumer until the next retarget.
+         */
+        void detach()
+        {
+        }
+
+        void close()
+        {
+        }
+    }
+
+    private static void discard(char[] buffer, int offset, int length)
+    {
+    }
+
+    private static void discard(byte[] bytes, int offset, int length)
+    {
+    }
+
+    private static final class CharSink<X extends Exception> extends Sink<X>
+    {
+        private BufferConsumer<X> consumer;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int index = 0;
+
+        CharSink(BufferConsumer<X> consumer)
+        {
+            this.consumer = consumer;
+        }
+
+        @Override
+        void reset()
+        {
+            index = 0;
+        }
+
+        @Override
+        void retarget(BufferConsumer<X> consumer)
+        {
+            this.consumer = consumer;
+        }
+
+        @Override
+        void detach()
+        {
+            consumer = HtmlOutputter::discard;
+        }
+
+        @Override
+        void append(char c) throws X
+        {
+            buffer[index++] = c;
+            if (index == buffer.length)
+            {
+                flush();
+            }
+        }
+
+        @Override
+        void append(String s, int start, int end) throws X
+        {
+            while (start < end)
+            {
+                int n = Math.min(end - start, buffer.length - index);
+                s.getChars(start, start + n, buffer, index);
+                index += n;
+                start += n;
+                if (index == buffer.length)
+                {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        void append(char[] chars, int start, int end) throws X
+        {
+            while (start < end)
+            {
+                int n = Math.min(end - start, buffer.length - index);
+                System.arraycopy(chars, start, buffer, index, n);
+                index += n;
+                start += n;
+                if (index == buffer.length)
+                {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        void appendLatin1(byte[] bytes, int start, int end) throws X
+        {
+            while (start < end)
+            {
+                int n = Math.min(end - start, buffer.length - index);
+                for (int i = 0; i < n; i++)
+                {
+                    buffer[index + i] = (char) (bytes[start + i] & 0xFF);
+                }
+                index += n;
+                start += n;
+                if (index == buffer.length)
+                {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        void append(Markup markup) throws X
+        {
+            int n = markup.length();
+            int start = 0;
+            while (start < n)
+            {
+                int end = Math.min(n, start + buffer.length - index);
+                markup.getChars(start, end, buffer, index);
+                index += end - start;
+                start = end;
+                if (index == buffer.length)
+                {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        void flush() throws X
+        {
+            if (index > 0)
+            {
+                consumer.accept(buffer, 0, index);
+                index = 0;
+            }
+        }
+    }
+
+    /**
+     * Encodes the output as UTF-8, passing along each buffer as it fills up.
+     */
+    private static abstract class ByteSink<X extends Exception> extends Sink<X>
+    {
+        // Unpaired surrogates are replaced with '?', just like String.getBytes and OutputStreamWriter.
+        private static final byte REPLACEMENT = '?';
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int index = 0;
+        private char highSurrogate = 0;
+
+        abstract void write(byte[] bytes, int offset, int length) throws X;
+
+        @Override
+        void reset()
+        {
+            index = 0;
+            highSurrogate = 0;
+        }
+
+        @Override
+        void append(char c) throws X
+        {
+            if (c < 0x80 && highSurrogate == 0)
+            {
+                if (index == buffer.length)
+                {
+                    drain();
+                }
+                buffer[index++] = (byte) c;
+            }
+            else
+            {
+                encode(c);
+            }
+        }
+
+        @Override
+        void append(String s, int start, int end) throws X
+        {
+            int i = start;
+            while (i < end)
+            {
+                char c = s.charAt(i);
+                if (c < 0x80 && highSurrogate == 0)
+                {
+                    if (index == buffer.length)
+                    {
+                        drain();
+                    }
+                    int limit = Math.min(end, i + buffer.length - index);
+                    buffer[index++] = (byte) c;
+                    i++;
+                    while (i < limit && (c = s.charAt(i)) < 0x80)
+                    {
+                        buffer[index++] = (byte) c;
+                        i++;
+                    }
+                }
+                else
+                {
+                    encode(c);
+                    i++;
+                }
+            }
+        }
+
+        @Override
+        void append(char[] chars, int start, int end) throws X
+        {
+            for (int i = start; i < end; i++)
+            {
+                append(chars[i]);
+            }
+        }
+
+        @Override
+        void appendLatin1(byte[] bytes, int start, int end) throws X
+        {
+            int i = start;
+            while (i < end)
+            {
+                byte b = bytes[i];
+                if (b >= 0 && highSurrogate == 0)
+                {
+                    // ASCII is the same in UTF-8, so a whole run is copied at once
+                    if (index == buffer.length)
+                    {
+                        drain();
+                    }
+                    int limit = Math.min(end, i + buffer.length - index);
+                    int runEnd = i + 1;
+                    while (runEnd < limit && bytes[runEnd] >= 0)
+                    {
+                        runEnd++;
+                    }
+                    System.arraycopy(bytes, i, buffer, index, runEnd - i);
+                    index += runEnd - i;
+                    i = runEnd;
+                }
+                else
+                {
+                    encode((char) (b & 0xFF));
+                    i++;
+                }
+            }
+        }
+
+        @Override
+        void append(Markup markup) throws X
+        {
+            if (highSurrogate != 0 || markup.hasSurrogateAtEdge())
+            {
+                // rare enough to not bother with the pre-encoded bytes
+                String string = markup.toString();
+                append(string, 0, string.length());
+                return;
+            }
+            int n = markup.byteLength();
+            int start = 0;
+            while (start < n)
+            {
+                if (index == buffer.length)
+                {
+                    drain();
+                }
+                int end = Math.min(n, start + buffer.length - index);
+                markup.getBytes(start, end, buffer, index);
+                index += end - start;
+                start = end;
+            }
+        }
+
+        private void encode(char c) throws X
+        {
+            if (buffer.length - index < 4)
+            {
+                drain();
+            }
+            if (highSurrogate != 0)
+            {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c))
+                {
+                    int codePoint = Character.toCodePoint(high, c);
+                    buffer[index++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[index++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[index++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[index++] = (byte) (0x80 | (codePoint & 0x3F));
+                    return;
+                }
+                buffer[index++] = REPLACEMENT;
+            }
+            if (c < 0x80)
+            {
+                buffer[index++] = (byte) c;
+            }
+            else if (c < 0x800)
+            {
+                buffer[index++] = (byte) (0xC0 | (c >> 6));
+                buffer[index++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isHighSurrogate(c))
+            {
+                highSurrogate = c;
+            }
+            else if (Character.isLowSurrogate(c))
+            {
+                buffer[index++] = REPLACEMENT;
+            }
+            else
+            {
+                buffer[index++] = (byte) (0xE0 | (c >> 12));
+                buffer[index++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[index++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        @Override
+        void flush() throws X
+        {
+            if (highSurrogate != 0)
+            {
+                highSurrogate = 0;
+                if (index == buffer.length)
+                {
+                    drain();
+                }
+                buffer[index++] = REPLACEMENT;
+            }
+            drain();
+        }
+
+        private void drain() throws X
+        {
+            if (index > 0)
+            {
+                write(buffer, 0, index);
+                index = 0;
+            }
+        }
+    }
+
+    private static final class Utf8Sink<X extends Exception> extends ByteSink<X>
+    {
+        private ByteConsumer<X> consumer;
+
+        Utf8Sink(ByteConsumer<X> consumer)
+        {
+            this.consumer = consumer;
+        }
+
+        @Override
+        void retargetBytes(ByteConsumer<X> consumer)
+        {
+            this.consumer = consumer;
+        }
+
+        @Override
+        void detach()
+        {
+            consumer = HtmlOutputter::discard;
+        }
+
+        @Override
+        void write(byte[] bytes, int offset, int length) throws X
+        {
+            consumer.accept(bytes, offset, length);
+        }
+    }
+
+    /**
+     * @see <a href="https://tools.ietf.org/html/rfc1952">GZIP file format specification</a>
+     */
+    private static final class GzipSink<X extends Exception> extends ByteSink<X>
+    {
+        private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+        private ByteConsumer<X> consumer;
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] compressed = new byte[BUFFER_SIZE];
+        private boolean started = false;
+
+        GzipSink(ByteConsumer<X> consumer, int level)
+        {
+            this.consumer = consumer;
+            this.deflater = new Deflater(level, true);
+        }
+
+        @Override
+        void reset()
+        {
+            super.reset();
+            deflater.reset();
+            crc.reset();
+            started = false;
+        }
+
+        @Override
+        void retargetBytes(ByteConsumer<X> consumer)
+        {
+            this.consumer = consumer;
+        }
+
+        @Override
+        void detach()
+        {
+            consumer = HtmlOutputter::discard;
+        }
+
+        @Override
+        void write(byte[] bytes, int offset, int length) throws X
+        {
+            start();
+            crc.update(bytes, offset, length);
+            deflater.setInput(bytes, offset, length);
+            while (!deflater.needsInput())
+            {
+                deflate(Deflater.NO_FLUSH);
+            }
+        }
+
+        private void start() throws X
+        {
+            if (!started)
+            {
+                consumer.accept(HEADER, 0, HEADER.length);
+                started = true;
+            }
+        }
+
+        private int deflate(int flush) throws X
+        {
+            int length = deflater.deflate(compressed, 0, compressed.length, flush);
+            if (length > 0)
+            {
+                consumer.accept(compressed, 0, length);
+            }
+            return length;
+        }
+
+        @Override
+        void syncFlush() throws X
+        {
+            super.flush();
+            start();
+            while (deflate(Deflater.SYNC_FLUSH) == compressed.length)
+            {
+                // keep going until the compressor has room to spare
+            }
+        }
+
+        @Override
+        void flush() throws X
+        {
+            super.flush();
+            start();
+            deflater.finish();
+            while (!deflater.finished())
+            {
+                deflate(Deflater.NO_FLUSH);
+            }
+            long crcValue = crc.getValue();
+            long size = deflater.getBytesRead();
+            byte[] trailer = new byte[8];
+            for (int i = 0; i < 4; i++)
+            {
+                trailer[i] = (byte) (crcValue >> (8 * i));
+                trailer[i + 4] = (byte) (size >> (8 * i));
+            }
+            consumer.accept(trailer, 0, trailer.length);
+            deflater.reset();
+            crc.reset();
+            started = false;
+        }
+
+        @Override
+        void close()
+        {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Counts the characters and their UTF-8 bytes instead of keeping them.
+     */
+    private static final class CountingSink extends Sink<RuntimeException>
+    {
+        long chars = 0;
+        long bytes = 0;
+        char highSurrogate = 0;
+
+        @Override
+        void append(char c)
+        {
+            chars++;
+            count(c);
+        }
+
+        @Override
+        void append(String s, int start, int end)
+        {
+            chars += end - start;
+            for (int i = start; i < end; i++)
+            {
+                count(s.charAt(i));
+            }
+        }
+
+        @Override
+        void append(char[] chars, int start, int end)
+        {
+            this.chars += end - start;
+            for (int i = start; i < end; i++)
+            {
+                count(chars[i]);
+            }
+        }
+
+        @Override
+        void appendLatin1(byte[] bytes, int start, int end)
+        {
+            chars += end - start;
+            for (int i = start; i < end; i++)
+            {
+                count((char) (bytes[i] & 0xFF));
+            }
+        }
+
+        @Override
+        void append(Markup markup)
+        {
+            if (highSurrogate != 0 || markup.hasSurrogateAtEdge())
+            {
+                String string = markup.toString();
+                append(string, 0, string.length());
+                return;
+            }
+            chars += markup.length();
+            bytes += markup.byteLength();
+        }
+
+        // Must agree with ByteSink.encode and ChannelSink.encode.
+        private void count(char c)
+        {
+            if (c < 0x80 && highSurrogate == 0)
+            {
+                bytes++;
+                return;
+            }
+            if (highSurrogate != 0)
+            {
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c))
+                {
+                    bytes += 4;
+                    return;
+                }
+                bytes++;
+            }
+            if (c < 0x80)
+            {
+                bytes++;
+            }
+            else if (c < 0x800)
+            {
+                bytes += 2;
+            }
+            else if (Character.isHighSurrogate(c))
+            {
+                highSurrogate = c;
+            }
+            else if (Character.isLowSurrogate(c))
+            {
+                bytes++;
             }
             else
             {
-              switch (c)
-              {
-              case '<':
-                  raw("&lt;");
-                  break;
-              case '>':
-                  raw("&gt;");
-                  break;
-              case '&':
-                  raw("&amp;");
-                  break;
-              case '\r':
-                  newLine(EOL.CR);
-                  break;
-              case '\n':
-                  newLine(EOL.LF);
-                  break;
-              default:
-                  raw((char) c);
-                  break;
-              }
-            }
-        }
-    }
-
-    private void numericCharacterReference(int c) throws X
-    {
-        raw("&#");
-        raw(Integer.toString(c));
-        raw(";");
+                bytes += 3;
+            }
+        }
+
+        @Override
+        void flush()
+        {
+            if (highSurrogate != 0)
+            {
+                highSurrogate = 0;
+                bytes++;
+            }
+        }
+
+        @Override
+        void reset()
+        {
+            chars = 0;
+            bytes = 0;
+            highSurrogate = 0;
+        }
+    }
+
+    /**
+     * Copies the UTF-8 that ByteSink encodes into pooled direct buffers, a whole buffer at a
+     * time, so that encoding stays on the heap and the channel is given direct buffers.
+     */
+    private static final class ChannelSink extends ByteSink<IOException>
+    {
+        static final int DIRECT_BUFFER_SIZE = 64 * 1024;
+        static final int MAX_BUFFERS = 16;
+
+        // Direct buffers are expensive to allocate, so they're shared by all outputters.
+        private static final BlockingQueue<ByteBuffer> POOL = new ArrayBlockingQueue<>(4 * MAX_BUFFERS);
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer[] buffers = new ByteBuffer[MAX_BUFFERS];
+        private int count = 0;
+
+        ChannelSink(WritableByteChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        void write(byte[] bytes, int offset, int length) throws IOException
+        {
+            while (length > 0)
+            {
+                if (count == 0 || !buffers[count - 1].hasRemaining())
+                {
+                    if (count == buffers.length)
+                    {
+                        writeBuffers();
+                    }
+                    ByteBuffer buffer = POOL.poll();
+                    buffers[count++] = buffer != null ? buffer : ByteBuffer.allocateDirect(DIRECT_BUFFER_SIZE);
+                }
+                ByteBuffer buffer = buffers[count - 1];
+                int n = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, n);
+                offset += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        void flush() throws IOException
+        {
+            super.flush();
+            writeBuffers();
+        }
+
+        private void writeBuffers() throws IOException
+        {
+            try
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    buffers[i].flip();
+                }
+                if (channel instanceof GatheringByteChannel)
+                {
+                    GatheringByteChannel gatheringChannel = (GatheringByteChannel) channel;
+                    while (count > 0 && buffers[count - 1].hasRemaining())
+                    {
+                        gatheringChannel.write(buffers, 0, count);
+                    }
+                }
+                else
+                {
+                    for (int i = 0; i < count; i++)
+                    {
+                        while (buffers[i].hasRemaining())
+                        {
+                            channel.write(buffers[i]);
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                releaseBuffers();
+            }
+        }
+
+        @Override
+        void reset()
+        {
+            super.reset();
+            releaseBuffers();
+        }
+
+        private void releaseBuffers()
+        {
+            for (int i = 0; i < count; i++)
+            {
+                buffers[i].clear();
+                POOL.offer(buffers[i]);
+                buffers[i] = null;
+            }
+            count = 0;
+        }
     }
 }
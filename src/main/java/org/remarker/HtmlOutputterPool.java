@@ -0,0 +1,145 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.remarker.HtmlOutputter.BufferConsumer;
+import org.remarker.HtmlOutputter.ByteConsumer;
+import org.remarker.HtmlOutputter.Format;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps idle outputters around so that their buffers can be reused for the next document instead
+ * of being allocated again. The pool is safe to share between threads, including virtual threads,
+ * since it holds on to nothing per thread and never blocks; each outputter is only ever used by
+ * whoever acquired it, until it is released.
+ */
+public final class HtmlOutputterPool<X extends Exception>
+{
+    private final BlockingQueue<HtmlOutputter<X>> idle;
+    private final Supplier<HtmlOutputter<X>> factory;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a pool of outputters that write characters in the given format.
+     */
+    public HtmlOutputterPool(int capacity, Format format)
+    {
+        this(capacity, () -> new HtmlOutputter<>(HtmlOutputterPool::unacquired, format));
+    }
+
+    /**
+     * @param capacity the most idle outputters to keep
+     * @param factory creates an outputter whenever none are idle; the consumer it's created with
+     *     is replaced when it's acquired
+     */
+    public HtmlOutputterPool(int capacity, Supplier<HtmlOutputter<X>> factory)
+    {
+        this.idle = new ArrayBlockingQueue<>(capacity);
+        this.factory = requireNonNull(factory, "factory");
+    }
+
+    private static void unacquired(char[] buffer, int offset, int length)
+    {
+        throw new IllegalStateException("Outputter must be acquired from the pool");
+    }
+
+    /**
+     * Hands out an idle outputter, or a new one if there are none, retargeted to the given consumer.
+     */
+    public HtmlOutputter<X> acquire(BufferConsumer<X> consumer)
+    {
+        return take().retarget(consumer);
+    }
+
+    /**
+     * Like {@link #acquire}, for pools of outputters that write bytes.
+     */
+    public HtmlOutputter<X> acquireBytes(ByteConsumer<X> consumer)
+    {
+        return take().retargetBytes(consumer);
+    }
+
+    private HtmlOutputter<X> take()
+    {
+        HtmlOutputter<X> outputter = idle.poll();
+        if (outputter != null)
+        {
+            hits.increment();
+            return outputter;
+        }
+        misses.increment();
+        return factory.get();
+    }
+
+    /**
+     * Gives back an outputter that is no longer used. It is reset, even after a failed output,
+     * detached from its consumer, and closed and dropped if the pool is already full.
+     *
+     * @throws IllegalStateException if the outputter was already released
+     */
+    public void release(HtmlOutputter<X> outputter)
+    {
+        outputter.release();
+        if (!idle.offer(outputter))
+        {
+            outputter.close();
+        }
+    }
+
+    /**
+     * Outputs the contents to the consumer with a pooled outputter.
+     */
+    public void output(BufferConsumer<X> consumer, Object... contents) throws X
+    {
+        HtmlOutputter<X> outputter = acquire(consumer);
+        try
+        {
+            outputter.output(contents);
+        }
+        finally
+        {
+            release(outputter);
+        }
+    }
+
+    /**
+     * The number of times an idle outputter was handed out.
+     */
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    /**
+     * The number of times a new outputter had to be created.
+     */
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    public int getIdleCount()
+    {
+        return idle.size();
+    }
+}
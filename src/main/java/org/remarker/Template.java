@@ -0,0 +1,163 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.util.Arrays;
+import java.util.List;
+import org.remarker.dom.*;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A page skeleton with {@link Slot}s, rendered ahead of time into the static chunks between
+ * the slots. Outputting it with {@link HtmlOutputter#output(Bound)} copies the chunks and only
+ * renders what the slots are filled with. The output is always exactly the same as for the
+ * skeleton with each slot replaced by {@link Deferred} contents for its value.
+ */
+public final class Template
+{
+    final Fragment skeleton;
+    final List<Slot<?>> slots;
+    // negative if the chunks can never be used
+    final long context;
+    final Chunk first;
+    final Position[] positions;
+
+    Template(Fragment skeleton, List<Slot<?>> slots, long context, Chunk first, Position[] positions)
+    {
+        this.skeleton = skeleton;
+        this.slots = slots;
+        this.context = context;
+        this.first = first;
+        this.positions = positions;
+    }
+
+    /**
+     * Renders the skeleton in the given format as a new outputter would, which is where its
+     * chunks are used; anywhere else the skeleton is rendered as usual.
+     *
+     * @throws IllegalArgumentException if the skeleton includes deferred contents
+     */
+    public static Template compile(HtmlOutputter.Format format, Object... skeleton)
+    {
+        return HtmlOutputter.compile(format, Html.asHtml(skeleton));
+    }
+
+    public <T> Bound fill(Slot<T> slot, T value)
+    {
+        return new Bound(this, new Deferred[slots.size()]).fill(slot, value);
+    }
+
+    /**
+     * Copied as is, then flushed if any of the elements that end in it are ones the outputter
+     * flushes after.
+     */
+    static final class Chunk
+    {
+        final Markup markup;
+        // the end of the last line after the chunk, or -1 if the chunk is empty
+        final int eol;
+        final Element[] elements;
+
+        Chunk(Markup markup, int eol, Element[] elements)
+        {
+            this.markup = markup;
+            this.eol = eol;
+            this.elements = elements;
+        }
+    }
+
+    /**
+     * Where a slot occurs, with everything its contents are rendered with, followed by the chunk
+     * to copy next for each way the slot's contents can leave the end of the last line.
+     */
+    static final class Position
+    {
+        final int slot;
+        final Element parent;
+        final Content next;
+        final int indentLevel;
+        final int indentSuppressionLevel;
+        final Chunk[] following;
+
+        Position(int slot, Element parent, Content next, int indentLevel, int indentSuppressionLevel, Chunk[] following)
+        {
+            this.slot = slot;
+            this.parent = parent;
+            this.next = next;
+            this.indentLevel = indentLevel;
+            this.indentSuppressionLevel = indentSuppressionLevel;
+            this.following = following;
+        }
+    }
+
+    /**
+     * A template with values for some or all of its slots. Filling another slot returns a new
+     * instance, so a partly filled template can be shared and filled in differently.
+     */
+    public static final class Bound
+    {
+        private final Template template;
+        private final Deferred[] values;
+
+        private Bound(Template template, Deferred[] values)
+        {
+            this.template = template;
+            this.values = values;
+        }
+
+        public Template getTemplate()
+        {
+            return template;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the slot isn't in the template
+         */
+        public <T> Bound fill(Slot<T> slot, T value)
+        {
+            int index = template.slots.indexOf(requireNonNull(slot, "slot"));
+            if (index == -1)
+            {
+                throw new IllegalArgumentException(slot + " is not in the template");
+            }
+            Deferred[] values = Arrays.copyOf(this.values, this.values.length);
+            values[index] = slot.fill(value);
+            return new Bound(template, values);
+        }
+
+        Deferred get(Slot<?> slot)
+        {
+            int index = template.slots.indexOf(slot);
+            if (index == -1)
+            {
+                throw new IllegalArgumentException(slot + " is not in the template");
+            }
+            return get(index);
+        }
+
+        Deferred get(int index)
+        {
+            Deferred value = values[index];
+            if (value == null)
+            {
+                throw new IllegalArgumentException(template.slots.get(index) + " is not filled");
+            }
+            return value;
+        }
+    }
+}
@@ -16,16 +16,40 @@
 
 package org.remarker.dom;
 
-import java.util.regex.Pattern;
-
 import static java.util.Objects.requireNonNull;
 
 public final class Attribute
 {
-    private static final Pattern NAME_PATTERN = Pattern.compile("[a-z]+(?:-[a-z]+)*");
-
     public static Attribute quotedString(String name, Object value)
     {
+        if (value != null)
+        {
+            return quotedString(AttributeName.of(name), value);
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Booleans and small non-negative integers are shared rather than allocated each time.
+     */
+    public static Attribute quotedString(AttributeName name, Object value)
+    {
+        requireNonNull(name, "name");
+        if (value instanceof Integer)
+        {
+            int integer = (Integer) value;
+            if (integer >= 0 && integer < AttributeName.SMALL_INTEGERS)
+            {
+                return name.smallInteger(integer);
+            }
+        }
+        else if (value instanceof Boolean)
+        {
+            return name.cachedValue(value.toString());
+        }
         if (value != null)
         {
             return new Attribute(name, requireNonNull(value.toString(), "value.toString()"));
@@ -36,11 +60,28 @@ public final class Attribute
         }
     }
 
+    /**
+     * For attributes with only a few possible values, such as {@code type} or {@code dir}. The
+     * attribute for each of the first few distinct values is shared rather than allocated each time.
+     */
+    public static Attribute enumerated(AttributeName name, String value)
+    {
+        requireNonNull(name, "name");
+        if (value != null)
+        {
+            return name.cachedValue(value);
+        }
+        else
+        {
+            return null;
+        }
+    }
+
     public static Attribute traditionalBoolean(String name, Boolean value)
     {
         if (Boolean.TRUE.equals(value))
         {
-            return new Attribute(name, "");
+            return AttributeName.of(name).withoutValue();
         }
         else
         {
@@ -48,21 +89,37 @@ public final class Attribute
         }
     }
 
-    private final String name;
-    private final String value;
-
-    private Attribute(String name, String value)
+    /**
+     * The attribute for each name is shared rather than allocated each time.
+     */
+    public static Attribute traditionalBoolean(AttributeName name, Boolean value)
     {
-        if (!NAME_PATTERN.matcher(requireNonNull(name, "name")).matches())
+        requireNonNull(name, "name");
+        if (Boolean.TRUE.equals(value))
+        {
+            return name.withoutValue();
+        }
+        else
         {
-            throw new IllegalArgumentException("Attribute name should be lowercase with hyphens: " + name);
+            return null;
         }
+    }
+
+    private final AttributeName name;
+    private final String value;
 
+    Attribute(AttributeName name, String value)
+    {
         this.name = name;
         this.value = value;
     }
 
     public String getName()
+    {
+        return name.getName();
+    }
+
+    public AttributeName getAttributeName()
     {
         return name;
     }
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker.dom;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The name of an attribute along with the ways it's written in a start tag, each encoded once
+ * per instance. The generated factories register their names, so that those are only checked
+ * and encoded once and their common attributes are shared. Any other name, which might come
+ * from anywhere, gets a new instance each time rather than being kept forever. Instances are
+ * equal when their names are.
+ */
+public final class AttributeName
+{
+    private static final ConcurrentMap<String, AttributeName> NAMES = new ConcurrentHashMap<>();
+
+    /**
+     * The registered instance for the name, or else a new one that isn't registered.
+     */
+    public static AttributeName of(String name)
+    {
+        AttributeName attributeName = NAMES.get(requireNonNull(name, "name"));
+        return attributeName != null ? attributeName : new AttributeName(validate(name), false);
+    }
+
+    /**
+     * Registers the name if it isn't already, for a factory to keep in a constant.
+     */
+    public static AttributeName register(String name)
+    {
+        AttributeName attributeName = NAMES.get(requireNonNull(name, "name"));
+        if (attributeName == null)
+        {
+            attributeName = NAMES.computeIfAbsent(validate(name), key -> new AttributeName(key, true));
+        }
+        return attributeName;
+    }
+
+    /**
+     * Checks that the name matches {@code [a-z]+(-[a-z]+)*}, without a regular expression, since
+     * unregistered names are checked every time.
+     */
+    private static String validate(String name)
+    {
+        boolean valid = !name.isEmpty() && name.charAt(name.length() - 1) != '-';
+        for (int i = 0; i < name.length() && valid; i++)
+        {
+            char c = name.charAt(i);
+            valid = c >= 'a' && c <= 'z' || c == '-' && i > 0 && name.charAt(i - 1) != '-';
+        }
+        if (!valid)
+        {
+            throw new IllegalArgumentException("Attribute name should be lowercase with hyphens: " + name);
+        }
+        return name;
+    }
+
+    static final int SMALL_INTEGERS = 64;
+    static final int MAX_CACHED_VALUES = 16;
+
+    private final String name;
+    // Encoded when first written, since an unregistered instance is rarely written more than
+    // one way. Markup is immutable, so racing to fill these at worst encodes one twice.
+    private Markup prefix = null;
+    private Markup assignment = null;
+    private Markup quotedAssignment = null;
+    // Attributes are immutable too, and only registered names share them.
+    private final Attribute withoutValue;
+    private Attribute[] smallIntegers = null;
+    private final ConcurrentMap<String, Attribute> values;
+
+    private AttributeName(String name, boolean registered)
+    {
+        this.name = name;
+        this.withoutValue = registered ? new Attribute(this, "") : null;
+        this.values = registered ? new ConcurrentHashMap<>() : null;
+    }
+
+    Attribute withoutValue()
+    {
+        return withoutValue != null ? withoutValue : new Attribute(this, "");
+    }
+
+    Attribute smallInteger(int value)
+    {
+        if (values == null)
+        {
+            return new Attribute(this, Integer.toString(value));
+        }
+        Attribute[] cache = smallIntegers;
+        if (cache == null)
+        {
+            smallIntegers = cache = new Attribute[SMALL_INTEGERS];
+        }
+        Attribute attribute = cache[value];
+        if (attribute == null)
+        {
+            cache[value] = attribute = new Attribute(this, Integer.toString(value));
+        }
+        return attribute;
+    }
+
+    /**
+     * Shares an attribute per value for the first few distinct values, after which new values
+     * are no longer cached.
+     */
+    Attribute cachedValue(String value)
+    {
+        if (values == null)
+        {
+            return new Attribute(this, value);
+        }
+        Attribute attribute = values.get(value);
+        if (attribute == null)
+        {
+            attribute = new Attribute(this, value);
+            if (values.size() < MAX_CACHED_VALUES)
+            {
+                Attribute existing = values.putIfAbsent(value, attribute);
+                if (existing != null)
+                {
+                    attribute = existing;
+                }
+            }
+        }
+        return attribute;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * The name as written in a start tag without a value, such as {@code " checked"}.
+     */
+    public Markup getPrefix()
+    {
+        Markup markup = prefix;
+        if (markup == null)
+        {
+            prefix = markup = new Markup(" " + name);
+        }
+        return markup;
+    }
+
+    /**
+     * The name as written before an unquoted value, such as {@code " type="}.
+     */
+    public Markup getAssignment()
+    {
+        Markup markup = assignment;
+        if (markup == null)
+        {
+            assignment = markup = new Markup(" " + name + "=");
+        }
+        return markup;
+    }
+
+    /**
+     * The name as written before a quoted value, such as {@code " title=\""}.
+     */
+    public Markup getQuotedAssignment()
+    {
+        Markup markup = quotedAssignment;
+        if (markup == null)
+        {
+            quotedAssignment = markup = new Markup(" " + name + "=\"");
+        }
+        return markup;
+    }
+
+    @Override
+    public boolean equals(Object object)
+    {
+        return object == this || object instanceof AttributeName && name.equals(((AttributeName) object).name);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
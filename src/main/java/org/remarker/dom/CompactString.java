@@ -0,0 +1,154 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker.dom;
+
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Text that is all Latin-1, stored as one byte per character, which is half of what a String
+ * takes on Java 8. The outputter escapes it straight from the bytes, and writes ASCII bytes
+ * out unchanged as UTF-8.
+ */
+public final class CompactString implements CharSequence
+{
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+    // whether the bytes belong to the caller, who could still change them
+    private final boolean shared;
+
+    private CompactString(byte[] bytes, int offset, int length, boolean shared)
+    {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.shared = shared;
+    }
+
+    /**
+     * A copy of the text as a CompactString, or as a String if it has any character beyond
+     * Latin-1, so that changing the given sequence afterwards never changes the copy.
+     */
+    public static CharSequence of(CharSequence text)
+    {
+        int n = text.length();
+        for (int i = 0; i < n; i++)
+        {
+            if (text.charAt(i) > 0xFF)
+            {
+                return text.toString();
+            }
+        }
+        if (text instanceof String)
+        {
+            return new CompactString(((String) text).getBytes(StandardCharsets.ISO_8859_1), 0, n, false);
+        }
+        byte[] bytes = new byte[n];
+        for (int i = 0; i < n; i++)
+        {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        return new CompactString(bytes, 0, n, false);
+    }
+
+    /**
+     * UTF-8 text that is all ASCII is kept in the given array without copying it, so the array
+     * must not change afterwards. Otherwise the text is decoded and then compacted if it can be.
+     */
+    public static CharSequence ofUtf8(byte[] bytes, int offset, int length)
+    {
+        if (offset < 0 || length < 0 || offset > requireNonNull(bytes, "bytes").length - length)
+        {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", size " + bytes.length);
+        }
+        for (int i = offset; i < offset + length; i++)
+        {
+            if (bytes[i] < 0)
+            {
+                return of(new String(bytes, offset, length, StandardCharsets.UTF_8));
+            }
+        }
+        return new CompactString(bytes, offset, length, true);
+    }
+
+    @Override
+    public int length()
+    {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        if (index < 0 || index >= length)
+        {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return (char) (bytes[offset + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        checkRange(start, end);
+        return new CompactString(bytes, offset + start, end - start, shared);
+    }
+
+    /**
+     * Whether the text is kept in an array that was passed to {@link #ofUtf8}, so that it
+     * changes along with the array.
+     */
+    boolean isShared()
+    {
+        return shared;
+    }
+
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin)
+    {
+        checkRange(srcBegin, srcEnd);
+        requireNonNull(dst, "dst");
+        for (int i = srcBegin; i < srcEnd; i++)
+        {
+            dst[dstBegin++] = (char) (bytes[offset + i] & 0xFF);
+        }
+    }
+
+    /**
+     * Copies the Latin-1 bytes, which are only the same as UTF-8 for ASCII characters.
+     */
+    public void getBytes(int srcBegin, int srcEnd, byte[] dst, int dstBegin)
+    {
+        checkRange(srcBegin, srcEnd);
+        System.arraycopy(bytes, offset + srcBegin, requireNonNull(dst, "dst"), dstBegin, srcEnd - srcBegin);
+    }
+
+    private void checkRange(int start, int end)
+    {
+        if (start < 0 || end > length || start > end)
+        {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker.dom;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Content that isn't processed until it's output. The supplier may return anything an element
+ * accepts as contents except attributes, and is called again every time the content is output,
+ * measured or queried, so it should return a new stream or iterator each time.
+ */
+public final class Deferred extends Content
+{
+    private final Supplier<?> contents;
+
+    public Deferred(Supplier<?> contents)
+    {
+        this.contents = requireNonNull(contents, "contents");
+    }
+
+    /**
+     * Calls the supplier and returns its contents one at a time, holding on to nothing but the
+     * iterators of the arrays, collections and streams that are currently being flattened.
+     */
+    public Iterator<Content> iterator()
+    {
+        return new ContentIterator(contents.get());
+    }
+
+    @Override
+    void appendTextTo(StringBuilder builder)
+    {
+        iterator().forEachRemaining(content -> content.appendTextTo(builder));
+    }
+
+    @Override
+    Stream<Element> childStream()
+    {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), 0), false)
+                .flatMap(Node::elementStream);
+    }
+
+    @Override
+    Stream<Attribute> attributeStream()
+    {
+        return Stream.empty();
+    }
+
+    private static final class ContentIterator implements Iterator<Content>
+    {
+        private final Deque<Iterator<?>> iterators = new ArrayDeque<>();
+        private Content next;
+
+        ContentIterator(Object contents)
+        {
+            iterators.push(singletonList(contents).iterator());
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (next == null && !iterators.isEmpty())
+            {
+                Iterator<?> iterator = iterators.peek();
+                if (iterator.hasNext())
+                {
+                    next = processContent(iterator.next());
+                }
+                else
+                {
+                    iterators.pop();
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Content next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            Content content = next;
+            next = null;
+            return content;
+        }
+
+        /**
+         * Converts the content the same way as {@link Node#processContents}, except that nested
+         * contents are pushed onto the stack to be iterated rather than processed right away.
+         */
+        private Content processContent(Object content)
+        {
+            while (true)
+            {
+                if (content == null)
+                {
+                    return null;
+                }
+                else if (content instanceof String)
+                {
+                    return new Text((String) content);
+                }
+                else if (content instanceof Deferred)
+                {
+                    content = ((Deferred) content).contents.get();
+                }
+                else if (content instanceof Content)
+                {
+                    return (Content) content;
+                }
+                else if (content instanceof Fragment)
+                {
+                    iterators.push(((Fragment) content).getContents().iterator());
+                    return null;
+                }
+                else if (content instanceof Attribute)
+                {
+                    throw new IllegalArgumentException(
+                            "Attribute '" + ((Attribute) content).getName() + "' must be contained in an element");
+                }
+                else if (content instanceof Object[])
+                {
+                    iterators.push(asList((Object[]) content).iterator());
+                    return null;
+                }
+                else if (content instanceof Iterable)
+                {
+                    iterators.push(((Iterable<?>) content).iterator());
+                    return null;
+                }
+                else if (content instanceof Iterator)
+                {
+                    iterators.push((Iterator<?>) content);
+                    return null;
+                }
+                else if (content instanceof Optional)
+                {
+                    content = ((Optional<?>) content).orElse(null);
+                }
+                else if (content instanceof Stream)
+                {
+                    iterators.push(((Stream<?>) content).iterator());
+                    return null;
+                }
+                else if (content instanceof Supplier)
+                {
+                    content = ((Supplier<?>) content).get();
+                }
+                else if (content instanceof Enum || content instanceof CharSequence || content instanceof Boolean ||
+                        content instanceof Character || content instanceof Number)
+                {
+                    return new Text(content.toString());
+                }
+                else
+                {
+                    throw new IllegalArgumentException(content.getClass().getCanonicalName());
+                }
+            }
+        }
+    }
+}
@@ -16,20 +16,25 @@
 
 package org.remarker.dom;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.unmodifiableCollection;
-import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static org.remarker.dom.BreakStyle.*;
@@ -37,13 +42,16 @@ import static org.remarker.dom.ContentModel.*;
 
 public final class Element extends Content
 {
-    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Z]+[0-9]?");
+    private static final Content[] NO_CONTENTS = new Content[0];
+    private static final Attribute[] NO_ATTRIBUTES = new Attribute[0];
+    private static final Object[] NO_TEXT = new Object[0];
 
-    private final String name;
-    private final BreakStyle breakStyle;
-    private final ContentModel contentModel;
+    private final ElementType type;
     private final List<Content> contents;
     private final List<Attribute> attributes;
+    private final boolean hasNonInlineContents;
+    private final boolean hasDeferredContents;
+    private final boolean hasMutableText;
 
     public Element(String name, boolean inline, boolean empty, Object... contents)
     {
@@ -52,60 +60,517 @@ public final class Element extends Content
 
     public Element(String name, BreakStyle breakStyle, ContentModel contentModel, Object... contents)
     {
-        if (!NAME_PATTERN.matcher(requireNonNull(name, "name")).matches())
+        this(ElementType.of(name, breakStyle, contentModel), contents);
+    }
+
+    public Element(ElementType type, Object... contents)
+    {
+        this(type, collect(requireNonNull(type, "type").getName(), contents));
+    }
+
+    private static Collector collect(String name, Object[] contents)
+    {
+        Collector collector = new Collector(name, contents.length, 0);
+        processContents(contents, collector::addText, collector::addContent, collector::addAttribute);
+        return collector;
+    }
+
+    private Element(ElementType type, Collector collector)
+    {
+        String name = type.getName();
+        ContentModel contentModel = type.getContentModel();
+        collector.finishText();
+
+        if (contentModel == VOID && collector.contentCount > 0)
+        {
+            throw new IllegalArgumentException("Void element must not have contents: " + name);
+        }
+
+        if (contentModel == RAW_TEXT || contentModel == ESCAPABLE_RAW_TEXT)
         {
-            throw new IllegalArgumentException("Element name should be uppercase: " + name);
+            Text rawText = consolidateRawText(name, collector);
+            collector.contentCount = 0;
+            collector.append(rawText);
+
+            if (contentModel == RAW_TEXT && containsEndTag(rawText.getValue(), name))
+            {
+                throw new IllegalArgumentException("Element '" + name + "' must not contain text like '</" + name + "'");
+            }
         }
 
-        requireNonNull(breakStyle, "breakStyle");
-        requireNonNull(contentModel, "contentModel");
+        this.type = type;
+        this.contents = compactList(collector.contents, collector.contentCount);
+        this.attributes = collector.attributeCount == collector.checkedAttributes.size()
+                ? collector.checkedAttributes
+                : compactList(collector.attributes, collector.attributeCount);
+        this.hasNonInlineContents = hasNonInlineContents(this.contents);
+        this.hasDeferredContents = hasDeferredContents(this.contents);
+        this.hasMutableText = hasMutableText(this.contents);
+    }
 
-        List<Content> processedContents = new ArrayList<>();
-        Map<String, Attribute> processedAttributes = new LinkedHashMap<>();
+    /**
+     * For contents and attributes taken from elements that were already checked.
+     */
+    Element(ElementType type, Content[] contents, Attribute[] attributes)
+    {
+        this.type = type;
+        this.contents = compactList(contents, contents.length);
+        this.attributes = compactList(attributes, attributes.length);
+        this.hasNonInlineContents = hasNonInlineContents(this.contents);
+        this.hasDeferredContents = hasDeferredContents(this.contents);
+        this.hasMutableText = hasMutableText(this.contents);
+    }
 
-        processContents(contents, processedContents::add, attribute -> {
-            if (processedAttributes.containsKey(attribute.getName()))
+    private Element(ElementType type, List<Content> contents, List<Attribute> attributes,
+            boolean hasNonInlineContents, boolean hasDeferredContents, boolean hasMutableText)
+    {
+        this.type = type;
+        this.contents = contents;
+        this.attributes = attributes;
+        this.hasNonInlineContents = hasNonInlineContents;
+        this.hasDeferredContents = hasDeferredContents;
+        this.hasMutableText = hasMutableText;
+    }
+
+    public static Builder builder(ElementType type)
+    {
+        return builder(type, 0, 0);
+    }
+
+    /**
+     * @param contents how many contents to make room for at first
+     * @param attributes how many attributes to make room for at first
+     */
+    public static Builder builder(ElementType type, int contents, int attributes)
+    {
+        return new Builder(requireNonNull(type, "type"), contents, attributes);
+    }
+
+    /**
+     * Builds an element one item at a time through typed methods, producing the same element as
+     * passing the same items to the constructor but without working out what each of them is.
+     * Like the constructor, it ignores nulls.
+     */
+    public static final class Builder
+    {
+        private final ElementType type;
+        private Collector collector;
+
+        private Builder(ElementType type, int contents, int attributes)
+        {
+            this.type = type;
+            this.collector = new Collector(type.getName(), contents, attributes);
+        }
+
+        public Builder attr(Attribute attribute)
+        {
+            if (attribute != null)
             {
-                throw new IllegalArgumentException("Duplicate attribute '" + attribute.getName() + "' in element '" + name + "'");
+                collector().addAttribute(attribute);
+            }
+            return this;
+        }
+
+        public Builder text(String text)
+        {
+            if (text != null)
+            {
+                collector().addText(text);
+            }
+            return this;
+        }
+
+        public Builder child(Content child)
+        {
+            if (child != null)
+            {
+                collector().addContent(child);
+            }
+            return this;
+        }
+
+        public Builder children(Iterable<? extends Content> children)
+        {
+            if (children != null)
+            {
+                Collector collector = collector();
+                for (Content child : children)
+                {
+                    if (child != null)
+                    {
+                        collector.addContent(child);
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Creates the element. The builder can't be used any more after this, since the element
+         * may keep its arrays.
+         */
+        public Element build()
+        {
+            Element element = new Element(type, collector());
+            collector = null;
+            return element;
+        }
+
+        private Collector collector()
+        {
+            if (collector == null)
+            {
+                throw new IllegalStateException("Element already built: " + type.getName());
+            }
+            return collector;
+        }
+    }
+
+    /**
+     * Gathers the contents and attributes into arrays, which end up exactly the right size
+     * unless nested arrays, collections and the like expand to more than their own length, or a
+     * builder is given more than it made room for.
+     */
+    static final class Collector
+    {
+        // Beyond this, checking each new attribute against all earlier ones gets slower than hashing.
+        private static final int MAX_LINEAR_ATTRIBUTES = 8;
+
+        final String name;
+        Content[] contents;
+        int contentCount = 0;
+        Attribute[] attributes;
+        int attributeCount = 0;
+        Set<AttributeName> attributeNames = null;
+        // the attributes of an existing element, which can be shared if there are no others
+        List<Attribute> checkedAttributes = emptyList();
+        // the run of text since the last other content, merged into a single Text when it ends
+        private CharSequence firstText = null;
+        private Object[] text = NO_TEXT;
+        private int textCount = 0;
+        private final int textCapacity;
+        // a Text that makes up the whole run by itself, which is kept rather than copied
+        private Text wholeText = null;
+
+        Collector(String name, int contents, int attributes)
+        {
+            this.name = name;
+            this.textCapacity = Math.max(2, contents);
+            this.contents = contents == 0 ? NO_CONTENTS : new Content[contents];
+            this.attributes = attributes == 0 ? NO_ATTRIBUTES : new Attribute[attributes];
+        }
+
+        void addText(CharSequence piece)
+        {
+            wholeText = null;
+            addPiece(piece);
+        }
+
+        private void addPiece(CharSequence piece)
+        {
+            if (textCount == 0)
+            {
+                firstText = piece;
+                textCount = 1;
+                return;
+            }
+            if (textCount == 1)
+            {
+                if (text.length == 0)
+                {
+                    // a run of plain arguments usually fits exactly, so that the Text can keep the array
+                    text = new Object[textCapacity];
+                }
+                text[0] = firstText;
+            }
+            else if (textCount == text.length)
+            {
+                text = Arrays.copyOf(text, 2 * textCount);
+            }
+            text[textCount++] = piece;
+        }
+
+        void addContent(Content content)
+        {
+            if (content instanceof Text)
+            {
+                Text piece = (Text) content;
+                boolean alone = textCount == 0;
+                for (int i = 0, n = piece.getPieceCount(); i < n; i++)
+                {
+                    addPiece(piece.getPiece(i));
+                }
+                wholeText = alone ? piece : null;
+                return;
+            }
+            finishText();
+            append(content);
+        }
+
+        void finishText()
+        {
+            if (wholeText != null)
+            {
+                append(wholeText);
+                wholeText = null;
+            }
+            else if (textCount == 1)
+            {
+                append(new Text(firstText));
+            }
+            else if (textCount > 1)
+            {
+                append(Text.merge(text, textCount));
+                if (textCount == text.length)
+                {
+                    text = NO_TEXT;
+                }
+            }
+            textCount = 0;
+        }
+
+        private void append(Content content)
+        {
+            if (contentCount == contents.length)
+            {
+                contents = Arrays.copyOf(contents, Math.max(4, 2 * contentCount));
+            }
+            contents[contentCount++] = content;
+        }
+
+        /**
+         * Adds the attributes of an existing element, which are already known to be distinct.
+         */
+        void addCheckedAttributes(List<Attribute> checked)
+        {
+            checkedAttributes = checked;
+            for (Attribute attribute : checked)
+            {
+                if (attributeCount == attributes.length)
+                {
+                    attributes = Arrays.copyOf(attributes, Math.max(4, 2 * attributeCount));
+                }
+                attributes[attributeCount++] = attribute;
+            }
+            if (attributeCount >= MAX_LINEAR_ATTRIBUTES)
+            {
+                attributeNames = new HashSet<>();
+                for (int i = 0; i < attributeCount; i++)
+                {
+                    attributeNames.add(attributes[i].getAttributeName());
+                }
+            }
+        }
+
+        void addAttribute(Attribute attribute)
+        {
+            AttributeName attributeName = attribute.getAttributeName();
+            boolean duplicate = false;
+            if (attributeNames != null)
+            {
+                duplicate = !attributeNames.add(attributeName);
             }
             else
             {
-                processedAttributes.put(attribute.getName(), attribute);
+                for (int i = 0; i < attributeCount && !duplicate; i++)
+                {
+                    duplicate = attributes[i].getAttributeName().equals(attributeName);
+                }
+            }
+            if (duplicate)
+            {
+                throw new IllegalArgumentException("Duplicate attribute '" + attribute.getName() + "' in element '" + name + "'");
+            }
+            if (attributeCount == attributes.length)
+            {
+                attributes = Arrays.copyOf(attributes, Math.max(4, 2 * attributeCount));
             }
-        });
+            attributes[attributeCount++] = attribute;
+            if (attributeCount == MAX_LINEAR_ATTRIBUTES)
+            {
+                attributeNames = new HashSet<>();
+                for (int i = 0; i < attributeCount; i++)
+                {
+                    attributeNames.add(attributes[i].getAttributeName());
+                }
+            }
+        }
+    }
 
-        if (contentModel == VOID && !processedContents.isEmpty())
+    /**
+     * Shares the empty list, holds a single item directly, and otherwise wraps an array of
+     * exactly the right size.
+     */
+    static <T> List<T> compactList(T[] array, int length)
+    {
+        switch (length)
         {
-            throw new IllegalArgumentException("Void element must not have contents: " + name);
+        case 0:
+            return emptyList();
+        case 1:
+            return singletonList(array[0]);
+        default:
+            return new ArrayView<>(length == array.length ? array : Arrays.copyOf(array, length));
         }
+    }
 
-        if (contentModel == RAW_TEXT || contentModel == ESCAPABLE_RAW_TEXT)
+    private static final class ArrayView<T> extends AbstractList<T> implements RandomAccess
+    {
+        private final T[] array;
+
+        ArrayView(T[] array)
+        {
+            this.array = array;
+        }
+
+        @Override
+        public T get(int index)
         {
-            String rawText = consolidateRawText(name, processedContents);
-            processedContents.clear();
-            processedContents.add(new Text(rawText));
+            return array[index];
+        }
 
-            if (contentModel == RAW_TEXT && rawText.matches(".*</(?i:" + name + ").*"))
+        @Override
+        public int size()
+        {
+            return array.length;
+        }
+    }
+
+    private static boolean hasNonInlineContents(List<Content> contents)
+    {
+        for (Content content : contents)
+        {
+            if (isNonInline(content))
             {
-                throw new IllegalArgumentException("Element '" + name + "' must not contain text like '</" + name + "'");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNonInline(Content content)
+    {
+        if (content instanceof Element)
+        {
+            Element element = (Element) content;
+            BreakStyle breakStyle = element.getBreakStyle();
+            return breakStyle == BLOCK || breakStyle == PRE || element.hasNonInlineContents;
+        }
+        else if (content instanceof Deferred || content instanceof Slot)
+        {
+            return true;
+        }
+        else if (content instanceof TrustedHtml)
+        {
+            return ((TrustedHtml) content).hasLineBreaks();
+        }
+        else if (content instanceof Frozen)
+        {
+            return hasNonInlineContents(((Frozen) content).getContents());
+        }
+        else
+        {
+            return ((Text) content).hasLineBreaks();
+        }
+    }
+
+    private static boolean hasDeferredContents(List<Content> contents)
+    {
+        for (Content content : contents)
+        {
+            if (isDeferred(content))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDeferred(Content content)
+    {
+        return content instanceof Deferred || content instanceof Slot
+                || content instanceof Element && ((Element) content).hasDeferredContents;
+    }
+
+    static boolean hasMutableText(List<Content> contents)
+    {
+        for (Content content : contents)
+        {
+            if (isMutable(content))
+            {
+                return true;
             }
         }
+        return false;
+    }
 
-        this.name = name;
-        this.breakStyle = breakStyle;
-        this.contentModel = contentModel;
-        this.contents = unmodifiableList(processedContents);
-        this.attributes = unmodifiableList(new ArrayList<>(processedAttributes.values()));
+    private static boolean isMutable(Content content)
+    {
+        return content instanceof Text && !((Text) content).isImmutable()
+                || content instanceof Element && ((Element) content).hasMutableText
+                || content instanceof Frozen && hasMutableText(((Frozen) content).getContents());
+    }
+
+    /**
+     * Whether any contents pass the test after some were replaced, given whether any did
+     * before, only going over all of them if the replaced ones might have been the only ones.
+     */
+    private static boolean anyAfterReplacing(boolean before, List<Content> replaced, Collector replacement,
+            List<Content> after, Predicate<Content> test)
+    {
+        for (int i = 0; i < replacement.contentCount; i++)
+        {
+            if (test.test(replacement.contents[i]))
+            {
+                return true;
+            }
+        }
+        if (!before)
+        {
+            return false;
+        }
+        for (Content content : replaced)
+        {
+            if (test.test(content))
+            {
+                for (Content other : after)
+                {
+                    if (test.test(other))
+                    {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+        return true;
     }
 
-    private static String consolidateRawText(String name, List<Content> processedContents)
+    /**
+     * Joins the text contents into a single Text with a single piece, reusing the one already
+     * there if there is only one.
+     */
+    private static Text consolidateRawText(String name, Collector collector)
     {
-        StringBuilder rawText = new StringBuilder();
-        for (Content content : processedContents)
+        int length = 0;
+        for (int i = 0; i < collector.contentCount; i++)
         {
+            Content content = collector.contents[i];
             if (content instanceof Text)
             {
-                rawText.append(((Text) content).getValue());
+                length += ((Text) content).getValue().length();
+            }
+            else if (content instanceof Deferred || content instanceof Slot)
+            {
+                throw new IllegalArgumentException("Element '" + name + "' must not have deferred contents");
+            }
+            else if (content instanceof TrustedHtml)
+            {
+                throw new IllegalArgumentException("Element '" + name + "' must not have trusted HTML contents");
+            }
+            else if (content instanceof Frozen)
+            {
+                throw new IllegalArgumentException("Element '" + name + "' must not have frozen contents");
             }
             else
             {
@@ -113,22 +578,64 @@ public final class Element extends Content
                         + ((Element) content).getName() + "'");
             }
         }
-        return rawText.toString();
+        // only a String can't change after the end tag check
+        if (collector.contentCount == 1 && ((Text) collector.contents[0]).getPieceCount() == 1
+                && ((Text) collector.contents[0]).getPiece(0) instanceof String)
+        {
+            return (Text) collector.contents[0];
+        }
+        StringBuilder rawText = new StringBuilder(length);
+        for (int i = 0; i < collector.contentCount; i++)
+        {
+            rawText.append(((Text) collector.contents[i]).getValue());
+        }
+        return new Text(rawText.toString());
+    }
+
+    /**
+     * Whether the text contains "&lt;/" followed by the element name in any case, in a single
+     * pass without allocating.
+     */
+    static boolean containsEndTag(String text, String name)
+    {
+        char lower = Character.toLowerCase(name.charAt(0));
+        char upper = Character.toUpperCase(name.charAt(0));
+        int last = text.length() - name.length() - 2;
+        for (int i = text.indexOf('<'); i != -1 && i <= last; i = text.indexOf('<', i + 1))
+        {
+            char first = text.charAt(i + 2);
+            if (text.charAt(i + 1) == '/' && (first == upper || first == lower)
+                    && text.regionMatches(true, i + 3, name, 1, name.length() - 1))
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
     public String getName()
     {
-        return name;
+        return type.getName();
+    }
+
+    public ElementType getType()
+    {
+        return type;
+    }
+
+    public TagName getTagName()
+    {
+        return type.getTagName();
     }
 
     public BreakStyle getBreakStyle()
     {
-        return breakStyle;
+        return type.getBreakStyle();
     }
 
     public ContentModel getContentModel()
     {
-        return contentModel;
+        return type.getContentModel();
     }
 
     public List<Content> getContents()
@@ -141,6 +648,198 @@ public final class Element extends Content
         return attributes;
     }
 
+    /**
+     * Whether this element contains, at any depth, a block or preformatted element or text with
+     * line breaks (including trusted HTML), or any {@link Deferred} contents or {@link Slot}, which
+     * can't be known in advance. Computed once when the element is constructed, since its
+     * descendants are already known then.
+     */
+    public boolean hasNonInlineContents()
+    {
+        return hasNonInlineContents;
+    }
+
+    /**
+     * Whether this element contains, at any depth, {@link Deferred} contents or a {@link Slot},
+     * which might come out differently every time the element is output.
+     */
+    public boolean hasDeferredContents()
+    {
+        return hasDeferredContents;
+    }
+
+    /**
+     * Whether this element contains, at any depth, text that is read from its source when it's
+     * output, such as {@link Text#of}, which might have changed since it was last output.
+     */
+    public boolean hasMutableText()
+    {
+        return hasMutableText;
+    }
+
+    /**
+     * A copy with the attribute added, or replacing the one with the same name, sharing the
+     * contents as they are.
+     */
+    public Element withAttribute(Attribute attribute)
+    {
+        requireNonNull(attribute, "attribute");
+        int n = attributes.size();
+        Attribute[] array = new Attribute[n + 1];
+        for (int i = 0; i < n; i++)
+        {
+            array[i] = attributes.get(i);
+            if (array[i].getAttributeName().equals(attribute.getAttributeName()))
+            {
+                if (array[i] == attribute)
+                {
+                    return this;
+                }
+                array[i] = attribute;
+                for (i++; i < n; i++)
+                {
+                    array[i] = attributes.get(i);
+                }
+                return new Element(type, contents, compactList(array, n), hasNonInlineContents, hasDeferredContents,
+                        hasMutableText);
+            }
+        }
+        array[n] = attribute;
+        return new Element(type, contents, compactList(array, n + 1), hasNonInlineContents, hasDeferredContents,
+                hasMutableText);
+    }
+
+    /**
+     * A copy without the attribute, sharing the contents as they are, or this element if it
+     * doesn't have the attribute.
+     */
+    public Element withoutAttribute(String name)
+    {
+        requireNonNull(name, "name");
+        int n = attributes.size();
+        for (int i = 0; i < n; i++)
+        {
+            if (attributes.get(i).getName().equals(name))
+            {
+                Attribute[] array = new Attribute[n - 1];
+                for (int j = 0, k = 0; j < n; j++)
+                {
+                    if (j != i)
+                    {
+                        array[k++] = attributes.get(j);
+                    }
+                }
+                return new Element(type, contents, compactList(array, n - 1), hasNonInlineContents, hasDeferredContents,
+                        hasMutableText);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * A copy with the same attributes and new contents, which are checked just as the
+     * constructor checks them.
+     */
+    public Element withContents(Object... contents)
+    {
+        Collector collector = new Collector(getName(), contents.length, attributes.size());
+        collector.addCheckedAttributes(attributes);
+        processContents(contents, collector::addText, collector::addContent, collector::addAttribute);
+        return new Element(type, collector);
+    }
+
+    /**
+     * A copy with the content at the index replaced by the given contents. The other contents
+     * are shared as they are, and only the new ones are checked, except that neighbouring text
+     * is merged as usual.
+     */
+    public Element replaceChild(int index, Object... replacement)
+    {
+        int n = contents.size();
+        if (index < 0 || index >= n)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + n);
+        }
+        ContentModel contentModel = type.getContentModel();
+        if (contentModel == RAW_TEXT || contentModel == ESCAPABLE_RAW_TEXT)
+        {
+            // the only content is the whole text, which is checked as usual
+            Collector collector = new Collector(getName(), replacement.length, attributes.size());
+            collector.addCheckedAttributes(attributes);
+            processContents(replacement, collector::addText, collector::addContent, collector::addAttribute);
+            return new Element(type, collector);
+        }
+
+        // only text right next to the replaced content can merge with the new contents
+        int from = index > 0 && contents.get(index - 1) instanceof Text ? index - 1 : index;
+        int to = index + 1 < n && contents.get(index + 1) instanceof Text ? index + 2 : index + 1;
+        Collector collector = new Collector(getName(), replacement.length + 2, attributes.size());
+        collector.addCheckedAttributes(attributes);
+        for (int i = from; i < to; i++)
+        {
+            if (i == index)
+            {
+                processContents(replacement, collector::addText, collector::addContent, collector::addAttribute);
+            }
+            else
+            {
+                collector.addContent(contents.get(i));
+            }
+        }
+        collector.finishText();
+
+        Content[] array = new Content[n - (to - from) + collector.contentCount];
+        for (int i = 0; i < from; i++)
+        {
+            array[i] = contents.get(i);
+        }
+        System.arraycopy(collector.contents, 0, array, from, collector.contentCount);
+        for (int i = to, j = from + collector.contentCount; i < n; i++, j++)
+        {
+            array[j] = contents.get(i);
+        }
+        List<Content> newContents = compactList(array, array.length);
+        List<Content> replaced = contents.subList(from, to);
+        return new Element(type, newContents,
+                collector.attributeCount == collector.checkedAttributes.size()
+                        ? collector.checkedAttributes
+                        : compactList(collector.attributes, collector.attributeCount),
+                anyAfterReplacing(hasNonInlineContents, replaced, collector, newContents, Element::isNonInline),
+                anyAfterReplacing(hasDeferredContents, replaced, collector, newContents, Element::isDeferred),
+                anyAfterReplacing(hasMutableText, replaced, collector, newContents, Element::isMutable));
+    }
+
+    /**
+     * Replaces the element at the end of the path of content indexes with the result of the
+     * update, copying only the elements along the path and sharing everything else. Returns
+     * this element if the update returns the same element it was given.
+     */
+    public Element updateIn(int[] path, UnaryOperator<Element> update)
+    {
+        requireNonNull(update, "update");
+        return updateIn(path, 0, update);
+    }
+
+    private Element updateIn(int[] path, int depth, UnaryOperator<Element> update)
+    {
+        if (depth == path.length)
+        {
+            return requireNonNull(update.apply(this), "updated element");
+        }
+        int index = path[depth];
+        if (index < 0 || index >= contents.size())
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + contents.size());
+        }
+        Content child = contents.get(index);
+        if (!(child instanceof Element))
+        {
+            throw new IllegalArgumentException("Content " + index + " of element '" + getName() + "' is not an element");
+        }
+        Element updated = ((Element) child).updateIn(path, depth + 1, update);
+        return updated == child ? this : replaceChild(index, updated);
+    }
+
     @Override
     void appendTextTo(StringBuilder builder)
     {
@@ -150,7 +849,7 @@ public final class Element extends Content
     @Override
     Stream<Element> childStream()
     {
-        return contents.stream().filter(Element.class::isInstance).map(Element.class::cast);
+        return contents.stream().flatMap(Node::elementStream);
     }
 
     @Override
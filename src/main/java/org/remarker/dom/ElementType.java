@@ -0,0 +1,103 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker.dom;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The name of an element along with how its contents are laid out and parsed. The generated
+ * factories register one type per name and keep it in a constant, so that they create their
+ * elements without validating or looking up anything. Other names aren't registered.
+ */
+public final class ElementType
+{
+    private static final ConcurrentMap<String, ElementType> TYPES = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the registered type with the given name if it has the same break style and content
+     * model, and otherwise a new type that isn't registered.
+     */
+    public static ElementType of(String name, BreakStyle breakStyle, ContentModel contentModel)
+    {
+        ElementType type = TYPES.get(requireNonNull(name, "name"));
+        if (type == null || type.breakStyle != breakStyle || type.contentModel != contentModel)
+        {
+            type = new ElementType(type != null ? type.tagName : TagName.of(name), breakStyle, contentModel);
+        }
+        return type;
+    }
+
+    /**
+     * Registers the type for a generated factory to keep in a constant, along with its tag name,
+     * unless there's a type with that name already. If the registered type differs in break
+     * style or content model, an unregistered one is returned.
+     */
+    public static ElementType register(String name, BreakStyle breakStyle, ContentModel contentModel)
+    {
+        ElementType type = TYPES.get(requireNonNull(name, "name"));
+        if (type == null || type.breakStyle != breakStyle || type.contentModel != contentModel)
+        {
+            ElementType created = new ElementType(TagName.register(name), breakStyle, contentModel);
+            type = TYPES.putIfAbsent(name, created);
+            if (type == null || type.breakStyle != breakStyle || type.contentModel != contentModel)
+            {
+                type = created;
+            }
+        }
+        return type;
+    }
+
+    private final TagName tagName;
+    private final BreakStyle breakStyle;
+    private final ContentModel contentModel;
+
+    private ElementType(TagName tagName, BreakStyle breakStyle, ContentModel contentModel)
+    {
+        this.tagName = tagName;
+        this.breakStyle = requireNonNull(breakStyle, "breakStyle");
+        this.contentModel = requireNonNull(contentModel, "contentModel");
+    }
+
+    public String getName()
+    {
+        return tagName.getName();
+    }
+
+    public TagName getTagName()
+    {
+        return tagName;
+    }
+
+    public BreakStyle getBreakStyle()
+    {
+        return breakStyle;
+    }
+
+    public ContentModel getContentModel()
+    {
+        return contentModel;
+    }
+
+    @Override
+    public String toString()
+    {
+        return tagName.getName();
+    }
+}
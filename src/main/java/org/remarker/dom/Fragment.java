@@ -16,26 +16,24 @@
 
 package org.remarker.dom;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
-import static java.util.Collections.unmodifiableList;
-
 public final class Fragment extends Node
 {
     private final List<Content> contents;
 
     public Fragment(Object... contents)
     {
-        List<Content> processedContents = new ArrayList<>();
+        Element.Collector collector = new Element.Collector(null, contents.length, 0);
 
-        processContents(contents, processedContents::add, attribute -> {
+        processContents(contents, collector::addText, collector::addContent, attribute -> {
             throw new IllegalArgumentException(
                     "Attribute '" + attribute.getName() + "' must be contained in an element");
         });
 
-        this.contents = unmodifiableList(processedContents);
+        collector.finishText();
+        this.contents = Element.compactList(collector.contents, collector.contentCount);
     }
 
     public List<Content> getContents()
@@ -43,6 +41,28 @@ public final class Fragment extends Node
         return contents;
     }
 
+    boolean hasDeferredContents()
+    {
+        for (Content content : contents)
+        {
+            if (content instanceof Deferred || content instanceof Slot
+                    || content instanceof Element && ((Element) content).hasDeferredContents())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether any of the contents, at any depth, is text that is read from its source when it's
+     * output; see {@link Element#hasMutableText()}.
+     */
+    public boolean hasMutableText()
+    {
+        return Element.hasMutableText(contents);
+    }
+
     @Override
     void appendTextTo(StringBuilder builder)
     {
@@ -52,7 +72,7 @@ public final class Fragment extends Node
     @Override
     Stream<Element> childStream()
     {
-        return contents.stream().filter(Element.class::isInstance).map(Element.class::cast);
+        return contents.stream().flatMap(Node::elementStream);
     }
 
     @Override
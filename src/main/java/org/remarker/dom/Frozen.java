@@ -0,0 +1,92 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker.dom;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Contents together with the HTML they were rendered as in one particular context, so that
+ * outputting them again in that context is a single copy. Anywhere else, and for text and
+ * XPath queries, the contents are used just as if they hadn't been frozen.
+ */
+public final class Frozen extends Content
+{
+    private final Fragment contents;
+    private final TrustedHtml html;
+    private final long context;
+
+    private Frozen(Fragment contents, TrustedHtml html, long context)
+    {
+        this.contents = contents;
+        this.html = html;
+        this.context = context;
+    }
+
+    /**
+     * Pairs the contents with the HTML they were rendered as, for an outputter that is the only
+     * thing that knows what the context means; {@code HtmlOutputter.freeze} is the way to
+     * freeze contents. This is unsafe in the same way as {@link TrustedHtml#unsafe}, and also
+     * unless the HTML is exactly what the contents are rendered as in the context.
+     *
+     * @param context identifies the rendering context, or is negative if the HTML is never to be used
+     * @throws IllegalArgumentException if the contents include deferred contents
+     */
+    public static Frozen unsafe(Fragment contents, TrustedHtml html, long context)
+    {
+        if (contents.hasDeferredContents())
+        {
+            throw new IllegalArgumentException("Deferred contents can't be frozen");
+        }
+        return new Frozen(contents, requireNonNull(html, "html"), context);
+    }
+
+    public List<Content> getContents()
+    {
+        return contents.getContents();
+    }
+
+    public TrustedHtml getHtml()
+    {
+        return html;
+    }
+
+    public long getContext()
+    {
+        return context;
+    }
+
+    @Override
+    void appendTextTo(StringBuilder builder)
+    {
+        contents.appendTextTo(builder);
+    }
+
+    @Override
+    Stream<Element> childStream()
+    {
+        return contents.childStream();
+    }
+
+    @Override
+    Stream<Attribute> attributeStream()
+    {
+        return Stream.empty();
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker.dom;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces structurally identical elements, texts and attributes with one shared instance, so
+ * that a page repeating the same small subtrees thousands of times holds each of them once.
+ * Elements with deferred contents and texts with pieces that could change are left alone.
+ * <p>
+ * The table keeps at most the given number of entries, dropping the least recently used, so a
+ * subtree that was dropped is simply not shared with later ones. Each entry holds on to its
+ * whole subtree, so elements and texts that take more than a given number of bytes, roughly
+ * estimated, aren't entered at all (though their descendants still are). That bounds the
+ * memory the table keeps reachable by the entry count times the entry size.
+ */
+public final class Interner
+{
+    // Rough sizes with compressed references, not counting strings, which are often shared anyway.
+    private static final int ELEMENT_BYTES = 24;
+    private static final int TEXT_BYTES = 16;
+    private static final int ATTRIBUTE_BYTES = 24;
+    private static final int LIST_BYTES = 16;
+
+    private static final int DEFAULT_MAX_ENTRY_BYTES = 4096;
+
+    private final Map<Object, Object> table;
+    private final long maxEntryBytes;
+    private long savedBytes = 0;
+    // the estimated size of everything visited so far, to find the size of each subtree
+    private long visitedBytes = 0;
+
+    public Interner(int maxEntries)
+    {
+        this(maxEntries, DEFAULT_MAX_ENTRY_BYTES);
+    }
+
+    /**
+     * @param maxEntryBytes the most that an element, with all of its descendants, or a text is
+     *     estimated to take for it to be entered in the table
+     */
+    public Interner(int maxEntries, long maxEntryBytes)
+    {
+        if (maxEntries <= 0)
+        {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        if (maxEntryBytes <= 0)
+        {
+            throw new IllegalArgumentException("maxEntryBytes must be positive: " + maxEntryBytes);
+        }
+        this.maxEntryBytes = maxEntryBytes;
+        this.table = new LinkedHashMap<Object, Object>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The shared instance of the element, with all of its descendants shared in turn, which is
+     * either the element itself or a copy if any of them were replaced.
+     */
+    public synchronized Element intern(Element element)
+    {
+        return element == null ? null : element(element);
+    }
+
+    public synchronized Text intern(Text text)
+    {
+        return text == null ? null : text(text);
+    }
+
+    /**
+     * The shared instance for an element or text, or any other content as it is.
+     */
+    public synchronized Content intern(Content content)
+    {
+        return content == null ? null : content(content);
+    }
+
+    /**
+     * Roughly how much heap the replaced instances take, which is saved once nothing else
+     * refers to them.
+     */
+    public synchronized long getSavedBytes()
+    {
+        return savedBytes;
+    }
+
+    public synchronized int size()
+    {
+        return table.size();
+    }
+
+    private Content content(Content content)
+    {
+        if (content instanceof Element)
+        {
+            return element((Element) content);
+        }
+        else if (content instanceof Text)
+        {
+            return text((Text) content);
+        }
+        else if (content instanceof TrustedHtml)
+        {
+            visitedBytes += markupBytes(((TrustedHtml) content).getMarkup());
+        }
+        else if (content instanceof Frozen)
+        {
+            visitedBytes += markupBytes(((Frozen) content).getHtml().getMarkup());
+        }
+        return content;
+    }
+
+    private Element element(Element element)
+    {
+        long start = visitedBytes;
+        List<Content> contents = element.getContents();
+        List<Attribute> attributes = element.getAttributes();
+        Content[] sharedContents = new Content[contents.size()];
+        Attribute[] sharedAttributes = new Attribute[attributes.size()];
+        boolean changed = false;
+        for (int i = 0; i < sharedContents.length; i++)
+        {
+            sharedContents[i] = content(contents.get(i));
+            changed |= sharedContents[i] != contents.get(i);
+        }
+        for (int i = 0; i < sharedAttributes.length; i++)
+        {
+            sharedAttributes[i] = attribute(attributes.get(i));
+            changed |= sharedAttributes[i] != attributes.get(i);
+        }
+        Element result = changed ? new Element(element.getType(), sharedContents, sharedAttributes) : element;
+        visitedBytes += ELEMENT_BYTES + listBytes(contents.size()) + listBytes(attributes.size());
+        if (element.hasDeferredContents() || visitedBytes - start > maxEntryBytes)
+        {
+            return result;
+        }
+        Object shared = table.putIfAbsent(new ElementKey(element.getType(), sharedContents, sharedAttributes), result);
+        if (shared == null)
+        {
+            return result;
+        }
+        if (shared != element)
+        {
+            savedBytes += ELEMENT_BYTES + listBytes(contents.size()) + listBytes(attributes.size());
+        }
+        return (Element) shared;
+    }
+
+    private Text text(Text text)
+    {
+        long bytes = TEXT_BYTES + (text.getPieceCount() == 1 ? 0 : arrayBytes(text.getPieceCount()));
+        for (int i = 0; i < text.getPieceCount(); i++)
+        {
+            bytes += 2L * text.getPiece(i).length();
+        }
+        visitedBytes += bytes;
+        if (!text.isImmutable() || bytes > maxEntryBytes)
+        {
+            return text;
+        }
+        Object shared = table.putIfAbsent(new TextKey(text), text);
+        if (shared == null)
+        {
+            return text;
+        }
+        if (shared != text)
+        {
+            savedBytes += TEXT_BYTES + (text.getPieceCount() == 1 ? 0 : arrayBytes(text.getPieceCount()));
+        }
+        return (Text) shared;
+    }
+
+    private Attribute attribute(Attribute attribute)
+    {
+        visitedBytes += ATTRIBUTE_BYTES + 2L * attribute.getValue().length();
+        Object shared = table.putIfAbsent(new AttributeKey(attribute), attribute);
+        if (shared == null)
+        {
+            return attribute;
+        }
+        if (shared != attribute)
+        {
+            savedBytes += ATTRIBUTE_BYTES;
+        }
+        return (Attribute) shared;
+    }
+
+    private static int listBytes(int size)
+    {
+        // empty lists are shared, single items are held by a singleton list
+        return size == 0 ? 0 : size == 1 ? LIST_BYTES : LIST_BYTES + arrayBytes(size);
+    }
+
+    private static long markupBytes(Markup markup)
+    {
+        return 2L * markup.length() + markup.byteLength();
+    }
+
+    private static int arrayBytes(int length)
+    {
+        return (16 + 4 * length + 7) & ~7;
+    }
+
+    /**
+     * Compares the contents and attributes by identity, since they're already shared.
+     */
+    private static final class ElementKey
+    {
+        private final ElementType type;
+        private final Content[] contents;
+        private final Attribute[] attributes;
+        private final int hash;
+
+        ElementKey(ElementType type, Content[] contents, Attribute[] attributes)
+        {
+            this.type = type;
+            this.contents = contents;
+            this.attributes = attributes;
+            int hash = System.identityHashCode(type);
+            for (Content content : contents)
+            {
+                hash = 31 * hash + System.identityHashCode(content);
+            }
+            for (Attribute attribute : attributes)
+            {
+                hash = 31 * hash + System.identityHashCode(attribute);
+            }
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (!(object instanceof ElementKey))
+            {
+                return false;
+            }
+            ElementKey other = (ElementKey) object;
+            return hash == other.hash && type == other.type && identical(contents, other.contents)
+                    && identical(attributes, other.attributes);
+        }
+
+        private static boolean identical(Object[] a, Object[] b)
+        {
+            if (a.length != b.length)
+            {
+                return false;
+            }
+            for (int i = 0; i < a.length; i++)
+            {
+                if (a[i] != b[i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class TextKey
+    {
+        private final Text text;
+        private final int hash;
+
+        TextKey(Text text)
+        {
+            this.text = text;
+            this.hash = text.valueHashCode();
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            return object instanceof TextKey && hash == ((TextKey) object).hash
+                    && text.valueEquals(((TextKey) object).text);
+        }
+    }
+
+    private static final class AttributeKey
+    {
+        private final Attribute attribute;
+
+        AttributeKey(Attribute attribute)
+        {
+            this.attribute = attribute;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * attribute.getAttributeName().hashCode() + attribute.getValue().hashCode();
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            return object instanceof AttributeKey
+                    && attribute.getAttributeName().equals(((AttributeKey) object).attribute.getAttributeName())
+                    && attribute.getValue().equals(((AttributeKey) object).attribute.getValue());
+        }
+    }
+}
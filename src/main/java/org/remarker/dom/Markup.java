@@ -0,0 +1,75 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker.dom;
+
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A piece of markup that has already been serialized, held both as chars and as UTF-8 bytes
+ * so that it can be copied in bulk into either kind of output buffer.
+ */
+public final class Markup
+{
+    private final char[] chars;
+    private final byte[] bytes;
+    private final boolean hasSurrogateAtEdge;
+
+    Markup(String markup)
+    {
+        this.chars = markup.toCharArray();
+        this.bytes = markup.getBytes(StandardCharsets.UTF_8);
+        this.hasSurrogateAtEdge = !markup.isEmpty() && (Character.isLowSurrogate(markup.charAt(0))
+                || Character.isHighSurrogate(markup.charAt(markup.length() - 1)));
+    }
+
+    public int length()
+    {
+        return chars.length;
+    }
+
+    public int byteLength()
+    {
+        return bytes.length;
+    }
+
+    /**
+     * Whether the markup starts with a low surrogate or ends with a high surrogate, which may
+     * pair up with whatever comes before or after it, so the UTF-8 bytes can't be used as is.
+     */
+    public boolean hasSurrogateAtEdge()
+    {
+        return hasSurrogateAtEdge;
+    }
+
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin)
+    {
+        System.arraycopy(chars, srcBegin, requireNonNull(dst, "dst"), dstBegin, srcEnd - srcBegin);
+    }
+
+    public void getBytes(int srcBegin, int srcEnd, byte[] dst, int dstBegin)
+    {
+        System.arraycopy(bytes, srcBegin, requireNonNull(dst, "dst"), dstBegin, srcEnd - srcBegin);
+    }
+
+    @Override
+    public String toString()
+    {
+        return new String(chars);
+    }
+}
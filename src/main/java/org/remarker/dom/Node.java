@@ -42,18 +42,21 @@ public abstract class Node
         // to prevent extension outside of package
     }
 
-    static void processContents(Object[] contents, Consumer<Content> addContent, Consumer<Attribute> addAttribute)
+    static void processContents(Object[] contents, Consumer<CharSequence> addText, Consumer<Content> addContent,
+            Consumer<Attribute> addAttribute)
     {
-        new ContentProcessor(addContent, addAttribute).processContent(contents);
+        new ContentProcessor(addText, addContent, addAttribute).processContent(contents);
     }
 
     private static class ContentProcessor
     {
+        private final Consumer<CharSequence> addText;
         private final Consumer<Content> addContent;
         private final Consumer<Attribute> addAttribute;
 
-        ContentProcessor(Consumer<Content> addContent, Consumer<Attribute> addAttribute)
+        ContentProcessor(Consumer<CharSequence> addText, Consumer<Content> addContent, Consumer<Attribute> addAttribute)
         {
+            this.addText = addText;
             this.addContent = addContent;
             this.addAttribute = addAttribute;
         }
@@ -66,7 +69,7 @@ public abstract class Node
             }
             else if (content instanceof String)
             {
-                addContent.accept(new Text((String) content));
+                addText.accept((String) content);
             }
             else if (content instanceof Content)
             {
@@ -110,7 +113,7 @@ public abstract class Node
             else if (content instanceof Enum || content instanceof CharSequence || content instanceof Boolean ||
                     content instanceof Character || content instanceof Number)
             {
-                addContent.accept(new Text(content.toString()));
+                addText.accept(content.toString());
             }
             else
             {
@@ -200,6 +203,17 @@ public abstract class Node
 
     abstract Stream<Element> childStream();
 
+    /**
+     * The element itself, or the top-level elements of deferred or frozen contents, which count
+     * as children of whatever contains them.
+     */
+    static Stream<Element> elementStream(Content content)
+    {
+        return content instanceof Element ? Stream.of((Element) content)
+                : content instanceof Deferred || content instanceof Frozen ? content.childStream()
+                : Stream.empty();
+    }
+
     abstract Stream<Attribute> attributeStream();
 
     private Stream<Node> selfAndDescendentsStream()
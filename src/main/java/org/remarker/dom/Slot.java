@@ -0,0 +1,76 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker.dom;
+
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A named placeholder in a template, which is filled with a value of the given type for each
+ * output. Until then it counts as {@link Deferred} contents, and it's empty to text and XPath
+ * queries.
+ */
+public final class Slot<T> extends Content
+{
+    private final String name;
+    private final Function<? super T, ?> contents;
+
+    /**
+     * @param contents converts a value into contents, each time it's output
+     */
+    public Slot(String name, Function<? super T, ?> contents)
+    {
+        this.name = requireNonNull(name, "name");
+        this.contents = requireNonNull(contents, "contents");
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public Deferred fill(T value)
+    {
+        return new Deferred(() -> contents.apply(value));
+    }
+
+    @Override
+    void appendTextTo(StringBuilder builder)
+    {
+        // not filled yet
+    }
+
+    @Override
+    Stream<Element> childStream()
+    {
+        return Stream.empty();
+    }
+
+    @Override
+    Stream<Attribute> attributeStream()
+    {
+        return Stream.empty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Slot '" + name + "'";
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker.dom;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The name of an element along with its start and end tags, encoded ahead of time. Names are
+ * validated when an instance is created. Only the names of registered element types are kept
+ * for reuse, while a name given to an element constructor gets a new instance unless it is one
+ * of them. Two instances are equal if they have the same name.
+ */
+public final class TagName
+{
+    private static final ConcurrentMap<String, TagName> NAMES = new ConcurrentHashMap<>();
+
+    /**
+     * The registered instance for the name, or else a new one that isn't registered.
+     */
+    public static TagName of(String name)
+    {
+        TagName tagName = NAMES.get(requireNonNull(name, "name"));
+        return tagName != null ? tagName : new TagName(validate(name));
+    }
+
+    /**
+     * Registers the name if it isn't already; see {@link ElementType#register}.
+     */
+    public static TagName register(String name)
+    {
+        TagName tagName = NAMES.get(requireNonNull(name, "name"));
+        if (tagName == null)
+        {
+            tagName = NAMES.computeIfAbsent(validate(name), TagName::new);
+        }
+        return tagName;
+    }
+
+    /**
+     * Checks that the name matches {@code [A-Z]+[0-9]?}, without a regular expression, since
+     * unregistered names are checked every time.
+     */
+    private static String validate(String name)
+    {
+        int letters = name.length();
+        if (letters > 1 && name.charAt(letters - 1) >= '0' && name.charAt(letters - 1) <= '9')
+        {
+            letters--;
+        }
+        boolean valid = letters > 0;
+        for (int i = 0; i < letters && valid; i++)
+        {
+            valid = name.charAt(i) >= 'A' && name.charAt(i) <= 'Z';
+        }
+        if (!valid)
+        {
+            throw new IllegalArgumentException("Element name should be uppercase: " + name);
+        }
+        return name;
+    }
+
+    private final String name;
+    private final Markup startTagPrefix;
+    private final Markup startTag;
+    private final Markup endTag;
+
+    private TagName(String name)
+    {
+        this.name = name;
+        this.startTagPrefix = new Markup("<" + name);
+        this.startTag = new Markup("<" + name + ">");
+        this.endTag = new Markup("</" + name + ">");
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * The start tag up to where the attributes go, such as {@code <TD}.
+     */
+    public Markup getStartTagPrefix()
+    {
+        return startTagPrefix;
+    }
+
+    /**
+     * The complete start tag of an element without attributes, such as {@code <TD>}.
+     */
+    public Markup getStartTag()
+    {
+        return startTag;
+    }
+
+    public Markup getEndTag()
+    {
+        return endTag;
+    }
+
+    @Override
+    public boolean equals(Object object)
+    {
+        return object == this || object instanceof TagName && name.equals(((TagName) object).name);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
@@ -16,28 +16,202 @@
 
 package org.remarker.dom;
 
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Text to be escaped when output. Neighbouring pieces of text are merged into a single Text
+ * when an element or fragment is constructed, keeping the original character sequences as
+ * pieces rather than copying them into one. Other character sequences given as contents are
+ * copied into Strings; only the factories here hold one as it is, so that changing it
+ * afterwards changes the text.
+ */
 public final class Text extends Content
 {
-    private final String value;
+    // a CharSequence, or an Object[] of at least two CharSequence pieces; an Object[] rather
+    // than a CharSequence[] keeps the type checks on storing and reading strings cheap
+    private final Object value;
 
-    Text(String value)
+    Text(CharSequence value)
     {
         this.value = requireNonNull(value);
     }
 
+    private Text(Object[] pieces)
+    {
+        this.value = pieces;
+    }
+
+    /**
+     * Text read straight from the sequence when it's output, without copying it.
+     */
+    public static Text of(CharSequence text)
+    {
+        return new Text(text);
+    }
+
+    /**
+     * Text read straight from part of the array when it's output, without copying it.
+     */
+    public static Text slice(char[] chars, int offset, int length)
+    {
+        return new Text(CharBuffer.wrap(chars, offset, length));
+    }
+
+    /**
+     * A copy of the text, held as one byte per character if it's all Latin-1; see
+     * {@link CompactString#of}.
+     */
+    public static Text compact(CharSequence text)
+    {
+        return new Text(CompactString.of(text));
+    }
+
+    /**
+     * UTF-8 text held as one byte per character, in the given array if it's all ASCII; see
+     * {@link CompactString#ofUtf8}.
+     */
+    public static Text compactUtf8(byte[] bytes, int offset, int length)
+    {
+        return new Text(CompactString.ofUtf8(bytes, offset, length));
+    }
+
+    /**
+     * The whole text, which is copied from the pieces every time unless it is a single String.
+     */
     public String getValue()
     {
-        return value;
+        if (!(value instanceof Object[]))
+        {
+            return value.toString();
+        }
+        StringBuilder builder = new StringBuilder();
+        appendTextTo(builder);
+        return builder.toString();
+    }
+
+    public int getPieceCount()
+    {
+        return value instanceof Object[] ? ((Object[]) value).length : 1;
+    }
+
+    public CharSequence getPiece(int index)
+    {
+        if (value instanceof Object[])
+        {
+            return (CharSequence) ((Object[]) value)[index];
+        }
+        if (index != 0)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        return (CharSequence) value;
+    }
+
+    boolean hasLineBreaks()
+    {
+        for (int i = 0, n = getPieceCount(); i < n; i++)
+        {
+            CharSequence piece = getPiece(i);
+            if (piece instanceof String)
+            {
+                if (((String) piece).indexOf('\r') != -1 || ((String) piece).indexOf('\n') != -1)
+                {
+                    return true;
+                }
+                continue;
+            }
+            for (int j = 0, length = piece.length(); j < length; j++)
+            {
+                char c = piece.charAt(j);
+                if (c == '\r' || c == '\n')
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether every piece is a String or a CompactString with its own bytes, which can't change.
+     */
+    boolean isImmutable()
+    {
+        for (int i = 0, n = getPieceCount(); i < n; i++)
+        {
+            CharSequence piece = getPiece(i);
+            if (!(piece instanceof String)
+                    && !(piece instanceof CompactString && !((CompactString) piece).isShared()))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The same as the hash code of {@link #getValue()}, without joining the pieces.
+     */
+    int valueHashCode()
+    {
+        if (value instanceof String)
+        {
+            return value.hashCode();
+        }
+        int hash = 0;
+        for (int i = 0, n = getPieceCount(); i < n; i++)
+        {
+            CharSequence piece = getPiece(i);
+            for (int j = 0, length = piece.length(); j < length; j++)
+            {
+                hash = 31 * hash + piece.charAt(j);
+            }
+        }
+        return hash;
+    }
+
+    boolean valueEquals(Text other)
+    {
+        if (value instanceof String && other.value instanceof String)
+        {
+            return value.equals(other.value);
+        }
+        return getValue().equals(other.getValue());
+    }
+
+    /**
+     * A single Text for a run of neighbouring pieces of text, leaving out the empty ones. The
+     * Text keeps the array itself when all of it is used.
+     */
+    static Text merge(Object[] pieces, int count)
+    {
+        int nonEmpty = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (((CharSequence) pieces[i]).length() != 0)
+            {
+                pieces[nonEmpty++] = pieces[i];
+            }
+        }
+        if (nonEmpty <= 1)
+        {
+            // with no non-empty pieces, the first one is still the original empty text
+            return new Text((CharSequence) pieces[0]);
+        }
+        return new Text(nonEmpty == pieces.length ? pieces : Arrays.copyOf(pieces, nonEmpty));
     }
 
     @Override
     void appendTextTo(StringBuilder builder)
     {
-        builder.append(value);
+        for (int i = 0, n = getPieceCount(); i < n; i++)
+        {
+            builder.append(getPiece(i));
+        }
     }
 
     @Override
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker.dom;
+
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * HTML that was rendered or sanitized elsewhere and is output exactly as given, without any
+ * escaping or checking. It's opaque to {@link Node#getAllText} and {@link Node#evaluateXPath}.
+ */
+public final class TrustedHtml extends Content
+{
+    private final Markup markup;
+    private final boolean hasLineBreaks;
+
+    private TrustedHtml(String html)
+    {
+        this.markup = new Markup(html);
+        this.hasLineBreaks = html.indexOf('\r') != -1 || html.indexOf('\n') != -1;
+    }
+
+    /**
+     * Wraps the HTML so that it will be output as is. This is unsafe unless the HTML is known to
+     * be well formed and to contain nothing from untrusted sources that wasn't sanitized.
+     */
+    public static TrustedHtml unsafe(String html)
+    {
+        return new TrustedHtml(requireNonNull(html, "html"));
+    }
+
+    public Markup getMarkup()
+    {
+        return markup;
+    }
+
+    boolean hasLineBreaks()
+    {
+        return hasLineBreaks;
+    }
+
+    @Override
+    void appendTextTo(StringBuilder builder)
+    {
+        // opaque
+    }
+
+    @Override
+    Stream<Element> childStream()
+    {
+        return Stream.empty();
+    }
+
+    @Override
+    Stream<Attribute> attributeStream()
+    {
+        return Stream.empty();
+    }
+}
@@ -17,6 +17,7 @@
 package org.remarker.ext;
 
 import org.remarker.dom.Attribute;
+import org.remarker.dom.AttributeName;
 
 public final class Bootstrap
 {
@@ -25,28 +26,38 @@ public final class Bootstrap
         // to prevent instantiation
     }
 
+    private static final AttributeName ARIA_EXPANDED_NAME = AttributeName.register("aria-expanded");
+
     public static Attribute AriaExpanded(String value)
     {
-        return Attribute.quotedString("aria-expanded", value);
+        return Attribute.enumerated(ARIA_EXPANDED_NAME, value);
     }
 
+    private static final AttributeName ARIA_HIDDEN_NAME = AttributeName.register("aria-hidden");
+
     public static Attribute AriaHidden(String value)
     {
-        return Attribute.quotedString("aria-hidden", value);
+        return Attribute.enumerated(ARIA_HIDDEN_NAME, value);
     }
 
+    private static final AttributeName DATA_PARENT_NAME = AttributeName.register("data-parent");
+
     public static Attribute DataParent(String value)
     {
-        return Attribute.quotedString("data-parent", value);
+        return Attribute.quotedString(DATA_PARENT_NAME, value);
     }
 
+    private static final AttributeName DATA_TARGET_NAME = AttributeName.register("data-target");
+
     public static Attribute DataTarget(String value)
     {
-        return Attribute.quotedString("data-target", value);
+        return Attribute.quotedString(DATA_TARGET_NAME, value);
     }
 
+    private static final AttributeName DATA_TOGGLE_NAME = AttributeName.register("data-toggle");
+
     public static Attribute DataToggle(String value)
     {
-        return Attribute.quotedString("data-toggle", value);
+        return Attribute.enumerated(DATA_TOGGLE_NAME, value);
     }
 }
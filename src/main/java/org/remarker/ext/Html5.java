@@ -17,7 +17,9 @@
 package org.remarker.ext;
 
 import org.remarker.dom.Attribute;
+import org.remarker.dom.AttributeName;
 import org.remarker.dom.Element;
+import org.remarker.dom.ElementType;
 
 import static org.remarker.dom.BreakStyle.*;
 import static org.remarker.dom.ContentModel.*;
@@ -33,63 +35,87 @@ public final class Html5
         // to prevent instantiation
     }
 
+    public static final ElementType EMBED_TYPE = ElementType.register("EMBED", BLOCK, VOID);
+
     public static Element EMBED(Object... contents)
     {
-        return new Element("EMBED", BLOCK, VOID, contents);
+        return new Element(EMBED_TYPE, contents);
     }
 
+    public static final ElementType SOURCE_TYPE = ElementType.register("SOURCE", BLOCK, VOID);
+
     public static Element SOURCE(Object... contents)
     {
-        return new Element("SOURCE", BLOCK, VOID, contents);
+        return new Element(SOURCE_TYPE, contents);
     }
 
+    public static final ElementType TEMPLATE_TYPE = ElementType.register("TEMPLATE", BLOCK, MIXED);
+
     public static Element TEMPLATE(Object... contents)
     {
-        return new Element("TEMPLATE", BLOCK, MIXED, contents);
+        return new Element(TEMPLATE_TYPE, contents);
     }
 
+    public static final ElementType TRACK_TYPE = ElementType.register("TRACK", BLOCK, VOID);
+
     public static Element TRACK(Object... contents)
     {
-        return new Element("TRACK", BLOCK, VOID, contents);
+        return new Element(TRACK_TYPE, contents);
     }
 
+    public static final ElementType WBR_TYPE = ElementType.register("WBR", INLINE, VOID);
+
     public static Element WBR(Object... contents)
     {
-        return new Element("WBR", INLINE, VOID, contents);
+        return new Element(WBR_TYPE, contents);
     }
 
+    private static final AttributeName AUTOFOCUS_NAME = AttributeName.register("autofocus");
+
     public static Attribute Autofocus(Boolean value)
     {
-        return Attribute.traditionalBoolean("autofocus", value);
+        return Attribute.traditionalBoolean(AUTOFOCUS_NAME, value);
     }
 
+    private static final AttributeName FORM_NAME = AttributeName.register("form");
+
     public static Attribute Form(String value)
     {
-        return Attribute.quotedString("form", value);
+        return Attribute.quotedString(FORM_NAME, value);
     }
 
+    private static final AttributeName MAX_NAME = AttributeName.register("max");
+
     public static Attribute Max(String value)
     {
-        return Attribute.quotedString("max", value);
+        return Attribute.quotedString(MAX_NAME, value);
     }
 
+    private static final AttributeName MIN_NAME = AttributeName.register("min");
+
     public static Attribute Min(String value)
     {
-        return Attribute.quotedString("min", value);
+        return Attribute.quotedString(MIN_NAME, value);
     }
 
+    private static final AttributeName PATTERN_NAME = AttributeName.register("pattern");
+
     public static Attribute Pattern(String value)
     {
-        return Attribute.quotedString("pattern", value);
+        return Attribute.quotedString(PATTERN_NAME, value);
     }
 
+    private static final AttributeName PLACEHOLDER_NAME = AttributeName.register("placeholder");
+
     public static Attribute Placeholder(String value)
     {
-        return Attribute.quotedString("placeholder", value);
+        return Attribute.quotedString(PLACEHOLDER_NAME, value);
     }
 
+    private static final AttributeName REQUIRED_NAME = AttributeName.register("required");
+
     public static Attribute Required(Boolean value)
     {
-        return Attribute.traditionalBoolean("required", value);
+        return Attribute.traditionalBoolean(REQUIRED_NAME, value);
     }
 }
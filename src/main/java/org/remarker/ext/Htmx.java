@@ -17,6 +17,7 @@
 package org.remarker.ext;
 
 import org.remarker.dom.Attribute;
+import org.remarker.dom.AttributeName;
 
 /**
  * @see <a href="https://htmx.org/reference">Htmx Reference</a>
@@ -29,108 +30,150 @@ public final class Htmx
         // to prevent instantiation
     }
 
+    private static final AttributeName DATA_HX_BOOST_NAME = AttributeName.register("data-hx-boost");
+
     public static Attribute Boost(Boolean value)
     {
-        return Attribute.quotedString("data-hx-boost", value);
+        return Attribute.quotedString(DATA_HX_BOOST_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_CLASSES_NAME = AttributeName.register("data-hx-classes");
+
     public static Attribute Classes(String value)
     {
-        return Attribute.quotedString("data-hx-classes", value);
+        return Attribute.quotedString(DATA_HX_CLASSES_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_CONFIRM_NAME = AttributeName.register("data-hx-confirm");
+
     public static Attribute Confirm(String value)
     {
-        return Attribute.quotedString("data-hx-confirm", value);
+        return Attribute.quotedString(DATA_HX_CONFIRM_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_DELETE_NAME = AttributeName.register("data-hx-delete");
+
     public static Attribute Delete(String value)
     {
-        return Attribute.quotedString("data-hx-delete", value);
+        return Attribute.quotedString(DATA_HX_DELETE_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_ERROR_URL_NAME = AttributeName.register("data-hx-error-url");
+
     public static Attribute ErrorUrl(String value)
     {
-        return Attribute.quotedString("data-hx-error-url", value);
+        return Attribute.quotedString(DATA_HX_ERROR_URL_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_GET_NAME = AttributeName.register("data-hx-get");
+
     public static Attribute Get(String value)
     {
-        return Attribute.quotedString("data-hx-get", value);
+        return Attribute.quotedString(DATA_HX_GET_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_HISTORY_ELT_NAME = AttributeName.register("data-hx-history-elt");
+
     public static Attribute HistoryElt()
     {
-        return Attribute.quotedString("data-hx-history-elt", true);
+        return Attribute.quotedString(DATA_HX_HISTORY_ELT_NAME, true);
     }
 
+    private static final AttributeName DATA_HX_INCLUDE_NAME = AttributeName.register("data-hx-include");
+
     public static Attribute Include(String value)
     {
-        return Attribute.quotedString("data-hx-include", value);
+        return Attribute.quotedString(DATA_HX_INCLUDE_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_INDICATOR_NAME = AttributeName.register("data-hx-indicator");
+
     public static Attribute Indicator(String value)
     {
-        return Attribute.quotedString("data-hx-indicator", value);
+        return Attribute.quotedString(DATA_HX_INDICATOR_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_PARAMS_NAME = AttributeName.register("data-hx-params");
+
     public static Attribute Params(String value)
     {
-        return Attribute.quotedString("data-hx-params", value);
+        return Attribute.quotedString(DATA_HX_PARAMS_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_PATCH_NAME = AttributeName.register("data-hx-patch");
+
     public static Attribute Patch(String value)
     {
-        return Attribute.quotedString("data-hx-patch", value);
+        return Attribute.quotedString(DATA_HX_PATCH_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_POST_NAME = AttributeName.register("data-hx-post");
+
     public static Attribute Post(String value)
     {
-        return Attribute.quotedString("data-hx-post", value);
+        return Attribute.quotedString(DATA_HX_POST_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_PROMPT_NAME = AttributeName.register("data-hx-prompt");
+
     public static Attribute Prompt(String value)
     {
-        return Attribute.quotedString("data-hx-prompt", value);
+        return Attribute.quotedString(DATA_HX_PROMPT_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_PUSH_URL_NAME = AttributeName.register("data-hx-push-url");
+
     public static Attribute PushUrl(Boolean value)
     {
-        return Attribute.quotedString("data-hx-push-url", value);
+        return Attribute.quotedString(DATA_HX_PUSH_URL_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_PUT_NAME = AttributeName.register("data-hx-put");
+
     public static Attribute Put(String value)
     {
-        return Attribute.quotedString("data-hx-put", value);
+        return Attribute.quotedString(DATA_HX_PUT_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_SELECT_NAME = AttributeName.register("data-hx-select");
+
     public static Attribute Select(String value)
     {
-        return Attribute.quotedString("data-hx-select", value);
+        return Attribute.quotedString(DATA_HX_SELECT_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_SSE_SRC_NAME = AttributeName.register("data-hx-sse-src");
+
     public static Attribute SseSrc(String value)
     {
-        return Attribute.quotedString("data-hx-sse-src", value);
+        return Attribute.quotedString(DATA_HX_SSE_SRC_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_SWAP_OOB_NAME = AttributeName.register("data-hx-swap-oob");
+
     public static Attribute SwapOob(Boolean value)
     {
-        return Attribute.quotedString("data-hx-swap-oob", value);
+        return Attribute.quotedString(DATA_HX_SWAP_OOB_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_SWAP_NAME = AttributeName.register("data-hx-swap");
+
     public static Attribute Swap(String value)
     {
-        return Attribute.quotedString("data-hx-swap", value);
+        return Attribute.enumerated(DATA_HX_SWAP_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_TARGET_NAME = AttributeName.register("data-hx-target");
+
     public static Attribute Target(String value)
     {
-        return Attribute.quotedString("data-hx-target", value);
+        return Attribute.quotedString(DATA_HX_TARGET_NAME, value);
     }
 
+    private static final AttributeName DATA_HX_TRIGGER_NAME = AttributeName.register("data-hx-trigger");
+
     public static Attribute Trigger(String value)
     {
-        return Attribute.quotedString("data-hx-trigger", value);
+        return Attribute.quotedString(DATA_HX_TRIGGER_NAME, value);
     }
 }
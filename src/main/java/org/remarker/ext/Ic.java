@@ -17,6 +17,7 @@
 package org.remarker.ext;
 
 import org.remarker.dom.Attribute;
+import org.remarker.dom.AttributeName;
 
 /**
  * @see <a href="http://intercoolerjs.org/reference.html">Intercooler Reference</a>
@@ -29,69 +30,95 @@ public final class Ic
         // to prevent instantiation
     }
 
+    private static final AttributeName IC_ACTION_NAME = AttributeName.register("ic-action");
+
     public static Attribute Action(String value)
     {
-        return Attribute.quotedString("ic-action", value);
+        return Attribute.quotedString(IC_ACTION_NAME, value);
     }
 
+    private static final AttributeName IC_ADD_CLASS_NAME = AttributeName.register("ic-add-class");
+
     public static Attribute AddClass(String value)
     {
-        return Attribute.quotedString("ic-add-class", value);
+        return Attribute.quotedString(IC_ADD_CLASS_NAME, value);
     }
 
+    private static final AttributeName IC_APPEND_FROM_NAME = AttributeName.register("ic-append-from");
+
     public static Attribute AppendFrom(String value)
     {
-        return Attribute.quotedString("ic-append-from", value);
+        return Attribute.quotedString(IC_APPEND_FROM_NAME, value);
     }
 
+    private static final AttributeName IC_ATTR_SRC_NAME = AttributeName.register("ic-attr-src");
+
     public static Attribute AttrSrc(String value)
     {
-        return Attribute.quotedString("ic-attr-src", value);
+        return Attribute.quotedString(IC_ATTR_SRC_NAME, value);
     }
 
+    private static final AttributeName IC_CONFIRM_NAME = AttributeName.register("ic-confirm");
+
     public static Attribute Confirm(String value)
     {
-        return Attribute.quotedString("ic-confirm", value);
+        return Attribute.quotedString(IC_CONFIRM_NAME, value);
     }
 
+    private static final AttributeName IC_DELETE_FROM_NAME = AttributeName.register("ic-delete-from");
+
     public static Attribute DeleteFrom(String value)
     {
-        return Attribute.quotedString("ic-delete-from", value);
+        return Attribute.quotedString(IC_DELETE_FROM_NAME, value);
     }
 
+    private static final AttributeName IC_DEPS_NAME = AttributeName.register("ic-deps");
+
     public static Attribute Deps(String value)
     {
-        return Attribute.quotedString("ic-deps", value);
+        return Attribute.quotedString(IC_DEPS_NAME, value);
     }
 
+    private static final AttributeName IC_GET_FROM_NAME = AttributeName.register("ic-get-from");
+
     public static Attribute GetFrom(String value)
     {
-        return Attribute.quotedString("ic-get-from", value);
+        return Attribute.quotedString(IC_GET_FROM_NAME, value);
     }
 
+    private static final AttributeName IC_GLOBAL_INCLUDE_NAME = AttributeName.register("ic-global-include");
+
     public static Attribute GlobalInclude(String value)
     {
-        return Attribute.quotedString("ic-global-include", value);
+        return Attribute.quotedString(IC_GLOBAL_INCLUDE_NAME, value);
     }
 
+    private static final AttributeName IC_INCLUDE_NAME = AttributeName.register("ic-include");
+
     public static Attribute Include(String value)
     {
-        return Attribute.quotedString("ic-include", value);
+        return Attribute.quotedString(IC_INCLUDE_NAME, value);
     }
 
+    private static final AttributeName IC_INDICATOR_NAME = AttributeName.register("ic-indicator");
+
     public static Attribute Indicator(String value)
     {
-        return Attribute.quotedString("ic-indicator", value);
+        return Attribute.quotedString(IC_INDICATOR_NAME, value);
     }
 
+    private static final AttributeName IC_LIMIT_CHILDREN_NAME = AttributeName.register("ic-limit-children");
+
     public static Attribute LimitChildren(String value)
     {
-        return Attribute.quotedString("ic-limit-children", value);
+        return Attribute.quotedString(IC_LIMIT_CHILDREN_NAME, value);
     }
 
+    private static final AttributeName IC_LOCAL_VARS_NAME = AttributeName.register("ic-local-vars");
+
     public static Attribute LocalVars(String value)
     {
-        return Attribute.quotedString("ic-local-vars", value);
+        return Attribute.quotedString(IC_LOCAL_VARS_NAME, value);
     }
 
     public static Attribute OnBeforeSend(String value)
@@ -104,138 +131,192 @@ public final class Ic
         return Attribute.quotedString("ic-on-beforeTrigger", value);
     }
 
+    private static final AttributeName IC_ON_COMPLETE_NAME = AttributeName.register("ic-on-complete");
+
     public static Attribute OnComplete(String value)
     {
-        return Attribute.quotedString("ic-on-complete", value);
+        return Attribute.quotedString(IC_ON_COMPLETE_NAME, value);
     }
 
+    private static final AttributeName IC_ON_ERROR_NAME = AttributeName.register("ic-on-error");
+
     public static Attribute OnError(String value)
     {
-        return Attribute.quotedString("ic-on-error", value);
+        return Attribute.quotedString(IC_ON_ERROR_NAME, value);
     }
 
+    private static final AttributeName IC_ON_SUCCESS_NAME = AttributeName.register("ic-on-success");
+
     public static Attribute OnSuccess(String value)
     {
-        return Attribute.quotedString("ic-on-success", value);
+        return Attribute.quotedString(IC_ON_SUCCESS_NAME, value);
     }
 
+    private static final AttributeName IC_PATCH_TO_NAME = AttributeName.register("ic-patch-to");
+
     public static Attribute PatchTo(String value)
     {
-        return Attribute.quotedString("ic-patch-to", value);
+        return Attribute.quotedString(IC_PATCH_TO_NAME, value);
     }
 
+    private static final AttributeName IC_PAUSE_POLLING_NAME = AttributeName.register("ic-pause-polling");
+
     public static Attribute PausePolling(String value)
     {
-        return Attribute.quotedString("ic-pause-polling", value);
+        return Attribute.quotedString(IC_PAUSE_POLLING_NAME, value);
     }
 
+    private static final AttributeName IC_POLL_NAME = AttributeName.register("ic-poll");
+
     public static Attribute Poll(String value)
     {
-        return Attribute.quotedString("ic-poll", value);
+        return Attribute.quotedString(IC_POLL_NAME, value);
     }
 
+    private static final AttributeName IC_POLL_REPEATS_NAME = AttributeName.register("ic-poll-repeats");
+
     public static Attribute PollRepeats(String value)
     {
-        return Attribute.quotedString("ic-poll-repeats", value);
+        return Attribute.quotedString(IC_POLL_REPEATS_NAME, value);
     }
 
+    private static final AttributeName IC_POST_ERRORS_TO_NAME = AttributeName.register("ic-post-errors-to");
+
     public static Attribute PostErrorsTo(String value)
     {
-        return Attribute.quotedString("ic-post-errors-to", value);
+        return Attribute.quotedString(IC_POST_ERRORS_TO_NAME, value);
     }
 
+    private static final AttributeName IC_POST_TO_NAME = AttributeName.register("ic-post-to");
+
     public static Attribute PostTo(String value)
     {
-        return Attribute.quotedString("ic-post-to", value);
+        return Attribute.quotedString(IC_POST_TO_NAME, value);
     }
 
+    private static final AttributeName IC_PREPEND_FROM_NAME = AttributeName.register("ic-prepend-from");
+
     public static Attribute PrependFrom(String value)
     {
-        return Attribute.quotedString("ic-prepend-from", value);
+        return Attribute.quotedString(IC_PREPEND_FROM_NAME, value);
     }
 
+    private static final AttributeName IC_PROMPT_NAME = AttributeName.register("ic-prompt");
+
     public static Attribute Prompt(String value)
     {
-        return Attribute.quotedString("ic-prompt", value);
+        return Attribute.quotedString(IC_PROMPT_NAME, value);
     }
 
+    private static final AttributeName IC_PUSH_URL_NAME = AttributeName.register("ic-push-url");
+
     public static Attribute PushUrl(String value)
     {
-        return Attribute.quotedString("ic-push-url", value);
+        return Attribute.quotedString(IC_PUSH_URL_NAME, value);
     }
 
+    private static final AttributeName IC_PUT_TO_NAME = AttributeName.register("ic-put-to");
+
     public static Attribute PutTo(String value)
     {
-        return Attribute.quotedString("ic-put-to", value);
+        return Attribute.quotedString(IC_PUT_TO_NAME, value);
     }
 
+    private static final AttributeName IC_REMOVE_AFTER_NAME = AttributeName.register("ic-remove-after");
+
     public static Attribute RemoveAfter(String value)
     {
-        return Attribute.quotedString("ic-remove-after", value);
+        return Attribute.quotedString(IC_REMOVE_AFTER_NAME, value);
     }
 
+    private static final AttributeName IC_REMOVE_CLASS_NAME = AttributeName.register("ic-remove-class");
+
     public static Attribute RemoveClass(String value)
     {
-        return Attribute.quotedString("ic-remove-class", value);
+        return Attribute.quotedString(IC_REMOVE_CLASS_NAME, value);
     }
 
+    private static final AttributeName IC_REPLACE_TARGET_NAME = AttributeName.register("ic-replace-target");
+
     public static Attribute ReplaceTarget(String value)
     {
-        return Attribute.quotedString("ic-replace-target", value);
+        return Attribute.quotedString(IC_REPLACE_TARGET_NAME, value);
     }
 
+    private static final AttributeName IC_SCROLL_OFFSET_NAME = AttributeName.register("ic-scroll-offset");
+
     public static Attribute ScrollOffset(String value)
     {
-        return Attribute.quotedString("ic-scroll-offset", value);
+        return Attribute.quotedString(IC_SCROLL_OFFSET_NAME, value);
     }
 
+    private static final AttributeName IC_SCROLL_TO_TARGET_NAME = AttributeName.register("ic-scroll-to-target");
+
     public static Attribute ScrollToTarget(String value)
     {
-        return Attribute.quotedString("ic-scroll-to-target", value);
+        return Attribute.quotedString(IC_SCROLL_TO_TARGET_NAME, value);
     }
 
+    private static final AttributeName IC_SELECT_FROM_RESPONSE_NAME = AttributeName.register("ic-select-from-response");
+
     public static Attribute SelectFromResponse(String value)
     {
-        return Attribute.quotedString("ic-select-from-response", value);
+        return Attribute.quotedString(IC_SELECT_FROM_RESPONSE_NAME, value);
     }
 
+    private static final AttributeName IC_SRC_NAME = AttributeName.register("ic-src");
+
     public static Attribute Src(String value)
     {
-        return Attribute.quotedString("ic-src", value);
+        return Attribute.quotedString(IC_SRC_NAME, value);
     }
 
+    private static final AttributeName IC_STYLE_SRC_NAME = AttributeName.register("ic-style-src");
+
     public static Attribute StyleSrc(String value)
     {
-        return Attribute.quotedString("ic-style-src", value);
+        return Attribute.quotedString(IC_STYLE_SRC_NAME, value);
     }
 
+    private static final AttributeName IC_TARGET_NAME = AttributeName.register("ic-target");
+
     public static Attribute Target(String value)
     {
-        return Attribute.quotedString("ic-target", value);
+        return Attribute.quotedString(IC_TARGET_NAME, value);
     }
 
+    private static final AttributeName IC_TRANSITION_DURATION_NAME = AttributeName.register("ic-transition-duration");
+
     public static Attribute TransitionDuration(String value)
     {
-        return Attribute.quotedString("ic-transition-duration", value);
+        return Attribute.quotedString(IC_TRANSITION_DURATION_NAME, value);
     }
 
+    private static final AttributeName IC_TRIGGER_DELAY_NAME = AttributeName.register("ic-trigger-delay");
+
     public static Attribute TriggerDelay(String value)
     {
-        return Attribute.quotedString("ic-trigger-delay", value);
+        return Attribute.quotedString(IC_TRIGGER_DELAY_NAME, value);
     }
 
+    private static final AttributeName IC_TRIGGER_FROM_NAME = AttributeName.register("ic-trigger-from");
+
     public static Attribute TriggerFrom(String value)
     {
-        return Attribute.quotedString("ic-trigger-from", value);
+        return Attribute.quotedString(IC_TRIGGER_FROM_NAME, value);
     }
 
+    private static final AttributeName IC_TRIGGER_ON_NAME = AttributeName.register("ic-trigger-on");
+
     public static Attribute TriggerOn(String value)
     {
-        return Attribute.quotedString("ic-trigger-on", value);
+        return Attribute.quotedString(IC_TRIGGER_ON_NAME, value);
     }
 
+    private static final AttributeName IC_VERB_NAME = AttributeName.register("ic-verb");
+
     public static Attribute Verb(String value)
     {
-        return Attribute.quotedString("ic-verb", value);
+        return Attribute.quotedString(IC_VERB_NAME, value);
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.lang.management.ManagementFactory;
+import org.remarker.dom.*;
+import org.remarker.ext.Bootstrap;
+import org.remarker.ext.Htmx;
+
+import static org.remarker.Html.*;
+
+public class AttributeBenchmark
+{
+    public static void main(String[] args)
+    {
+        int n = 100000;
+        int r = 20;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            long count = 0;
+            long total = 0;
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            for (int k = 0; k < r; k++)
+            {
+                long start = System.nanoTime();
+                for (int i = 0; i < n; i++)
+                {
+                    count += attributes(i).length;
+                }
+                long end = System.nanoTime();
+                total += (end - start);
+            }
+            allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+            if (round > 0)
+            {
+                System.out.printf("%d attributes: %.3f s (%.1f ns, %d bytes allocated each)%n", count,
+                        total / 1000000000.0, (double) total / count, allocated / count);
+            }
+
+            allocated = threads.getThreadAllocatedBytes(thread);
+            for (int k = 0; k < 10 * r; k++)
+            {
+                FormatBenchmark.reportPage(1000);
+            }
+            allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+            if (round > 0)
+            {
+                System.out.printf("report page with 1000 rows: %d bytes allocated%n", allocated / (10 * r));
+            }
+        }
+    }
+
+    // roughly what a row of a data table with a few controls carries
+    private static Attribute[] attributes(int i)
+    {
+        return new Attribute[] {
+                Class(i % 2 == 0 ? "even" : "odd"),
+                Id("row-" + i),
+                Href("/items/" + i),
+                Title("Item #" + i),
+                Type("checkbox"),
+                Name("selected"),
+                Value(String.valueOf(i)),
+                Checked(i % 3 == 0),
+                Disabled(),
+                Colspan(2),
+                Align("right"),
+                Htmx.Get("/items/" + i + "/details"),
+                Htmx.Target("#details"),
+                Bootstrap.DataToggle("collapse"),
+                Attribute.quotedString("data-row", i),
+        };
+    }
+}
@@ -54,14 +54,29 @@ class AttributeDefinition
         return name;
     }
 
+    String constantName()
+    {
+        return name.toUpperCase().replace('-', '_') + "_NAME";
+    }
+
     void generateCode()
     {
+        System.out.println();
+        System.out.println("    private static final AttributeName " + constantName() + " = AttributeName.register(\"" + xmlName() + "\");");
         if (allTypes.contains(AttributeType.STRING))
         {
             System.out.println();
             System.out.println("    public static Attribute " + javaName() + "(String value)");
             System.out.println("    {");
-            System.out.println("        return Attribute.quotedString(\"" + xmlName() + "\", value);");
+            System.out.println("        return Attribute.quotedString(" + constantName() + ", value);");
+            System.out.println("    }");
+        }
+        else if (allTypes.contains(AttributeType.ENUMERATED))
+        {
+            System.out.println();
+            System.out.println("    public static Attribute " + javaName() + "(String value)");
+            System.out.println("    {");
+            System.out.println("        return Attribute.enumerated(" + constantName() + ", value);");
             System.out.println("    }");
         }
         if (allTypes.contains(AttributeType.BOOLEAN))
@@ -69,12 +84,12 @@ class AttributeDefinition
             System.out.println();
             System.out.println("    public static Attribute " + javaName() + "()");
             System.out.println("    {");
-            System.out.println("        return Attribute.traditionalBoolean(\"" + xmlName() + "\", true);");
+            System.out.println("        return Attribute.traditionalBoolean(" + constantName() + ", true);");
             System.out.println("    }");
             System.out.println();
             System.out.println("    public static Attribute " + javaName() + "(Boolean value)");
             System.out.println("    {");
-            System.out.println("        return Attribute.traditionalBoolean(\"" + xmlName() + "\", value);");
+            System.out.println("        return Attribute.traditionalBoolean(" + constantName() + ", value);");
             System.out.println("    }");
         }
         if (allTypes.contains(AttributeType.NUMBER))
@@ -82,7 +97,7 @@ class AttributeDefinition
             System.out.println();
             System.out.println("    public static Attribute " + javaName() + "(Integer value)");
             System.out.println("    {");
-            System.out.println("        return Attribute.quotedString(\"" + xmlName() + "\", value);");
+            System.out.println("        return Attribute.quotedString(" + constantName() + ", value);");
             System.out.println("    }");
         }
     }
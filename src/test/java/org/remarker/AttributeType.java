@@ -18,5 +18,5 @@ package org.remarker;
 
 public enum AttributeType
 {
-    STRING, BOOLEAN, NUMBER
+    STRING, ENUMERATED, BOOLEAN, NUMBER
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.lang.management.ManagementFactory;
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class BuilderBenchmark
+{
+    static Element factoryRow(int i, String[] labels)
+    {
+        return TR(Class(i % 2 == 0 ? "even" : "odd"),
+                TD(A(Href("/items/" + i), "Item #", labels[i % labels.length])),
+                TD("In stock"),
+                TD(Class("number"), String.valueOf(i * 31)));
+    }
+
+    static Element builtRow(int i, String[] labels)
+    {
+        return Element.builder(TR_TYPE, 3, 1)
+                .attr(Class(i % 2 == 0 ? "even" : "odd"))
+                .child(Element.builder(TD_TYPE, 1, 0)
+                        .child(Element.builder(A_TYPE, 2, 1).attr(Href("/items/" + i))
+                                .text("Item #").text(labels[i % labels.length]).build())
+                        .build())
+                .child(Element.builder(TD_TYPE, 1, 0).text("In stock").build())
+                .child(Element.builder(TD_TYPE, 1, 1).attr(Class("number")).text(String.valueOf(i * 31)).build())
+                .build();
+    }
+
+    public static void main(String[] args)
+    {
+        int n = 100000;
+        int r = 20;
+        String[] labels = {"alpha", "beta", "gamma", "delta"};
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            for (boolean builder : new boolean[] {false, true})
+            {
+                long count = 0;
+                long allocated = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                for (int k = 0; k < r; k++)
+                {
+                    for (int i = 0; i < n; i++)
+                    {
+                        Element row = builder ? builtRow(i, labels) : factoryRow(i, labels);
+                        count += row.getContents().size();
+                    }
+                }
+                long end = System.nanoTime();
+                allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+                if (round > 0)
+                {
+                    System.out.printf("%-9s %.3f s (%.1f ns, %d bytes allocated per row) %d%n",
+                            builder ? "builder" : "factories", (end - start) / 1000000000.0,
+                            (double) (end - start) / n / r, allocated / n / r, count / r);
+                }
+            }
+        }
+    }
+}
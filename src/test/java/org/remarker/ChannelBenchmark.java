@@ -0,0 +1,140 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.remarker.dom.*;
+
+public class ChannelBenchmark
+{
+    public static void main(String[] args) throws IOException
+    {
+        int r = 50;
+        Element page = FormatBenchmark.reportPage(10000);
+        Path file = Files.createTempFile("remarker", ".html");
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.WRITE))
+        {
+            CountingChannel channel = new CountingChannel(fileChannel);
+            for (int round = 0; round < 2; round++)
+            {
+                // the first round only warms up
+                long total = 0;
+                channel.writes = 0;
+                for (int i = 0; i < r; i++)
+                {
+                    fileChannel.truncate(0);
+                    long start = System.nanoTime();
+                    Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+                    new HtmlOutputter<IOException>(writer::write).output(page);
+                    writer.flush();
+                    long end = System.nanoTime();
+                    total += (end - start);
+                }
+                report(round, "Writer", channel, fileChannel.size(), r, total);
+
+                total = 0;
+                channel.writes = 0;
+                for (int i = 0; i < r; i++)
+                {
+                    fileChannel.truncate(0);
+                    long start = System.nanoTime();
+                    OutputStream out = Channels.newOutputStream(channel);
+                    HtmlOutputter.<IOException>utf8(out::write).output(page);
+                    long end = System.nanoTime();
+                    total += (end - start);
+                }
+                report(round, "UTF-8 OutputStream", channel, fileChannel.size(), r, total);
+
+                total = 0;
+                channel.writes = 0;
+                for (int i = 0; i < r; i++)
+                {
+                    fileChannel.truncate(0);
+                    long start = System.nanoTime();
+                    HtmlOutputter.channel(channel, HtmlOutputter.Format.PRETTY).output(page);
+                    long end = System.nanoTime();
+                    total += (end - start);
+                }
+                report(round, "gathering channel", channel, fileChannel.size(), r, total);
+            }
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    private static void report(int round, String name, CountingChannel channel, long size, int r, long total)
+    {
+        if (round > 0)
+        {
+            System.out.printf("%-20s %8d bytes %6d writes/page %8.3f s%n", name, size, channel.writes / r,
+                    total / 1000000000.0);
+        }
+    }
+
+    private static final class CountingChannel implements GatheringByteChannel
+    {
+        private final FileChannel channel;
+        long writes = 0;
+
+        CountingChannel(FileChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) throws IOException
+        {
+            writes++;
+            return channel.write(sources, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources) throws IOException
+        {
+            return write(sources, 0, sources.length);
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException
+        {
+            writes++;
+            return channel.write(source);
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            channel.close();
+        }
+    }
+}
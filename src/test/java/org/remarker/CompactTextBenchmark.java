@@ -0,0 +1,105 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.util.function.Function;
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class CompactTextBenchmark
+{
+    /**
+     * A page as it might sit in a cache of rendered documents, mostly ASCII prose.
+     */
+    static Element cachedPage(int page, Function<String, Object> text)
+    {
+        Element[] articles = new Element[10];
+        for (int a = 0; a < articles.length; a++)
+        {
+            Element[] paragraphs = new Element[5];
+            for (int p = 0; p < paragraphs.length; p++)
+            {
+                StringBuilder prose = new StringBuilder();
+                for (int s = 0; s < 6; s++)
+                {
+                    prose.append("Section ").append(page).append('.').append(a).append('.').append(p)
+                            .append(" explains how the cache keeps rendered pages for a while & serves them again. ");
+                }
+                paragraphs[p] = P(text.apply(prose.toString()));
+            }
+            articles[a] = DIV(Class("article"), H2(text.apply("Article " + page + "." + a + ": caching <pages>")),
+                    (Object) paragraphs);
+        }
+        return HTML(HEAD(TITLE("Page " + page)), BODY(H1(text.apply("Cached page " + page)), (Object) articles));
+    }
+
+    public static void main(String[] args)
+    {
+        int pages = 500;
+        int r = 20;
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            long before = DeferredBenchmark.usedMemory();
+            Element[] strings = corpus(pages, text -> text);
+            long middle = DeferredBenchmark.usedMemory();
+            Element[] compact = corpus(pages, Html::compactText);
+            long after = DeferredBenchmark.usedMemory();
+            render("String", strings, middle - before, r, round);
+            render("compact", compact, after - middle, r, round);
+        }
+    }
+
+    private static Element[] corpus(int pages, Function<String, Object> text)
+    {
+        Element[] corpus = new Element[pages];
+        for (int i = 0; i < pages; i++)
+        {
+            corpus[i] = cachedPage(i, text);
+        }
+        return corpus;
+    }
+
+    private static void render(String label, Element[] corpus, long retained, int r, int round)
+    {
+        long chars = 0;
+        long bytes = 0;
+        long[] length = new long[1];
+        for (int k = 0; k < r; k++)
+        {
+            long start = System.nanoTime();
+            for (Element page : corpus)
+            {
+                HtmlOutputter.<RuntimeException>utf8((buffer, offset, count) -> length[0] += count).output(page);
+            }
+            long middle = System.nanoTime();
+            for (Element page : corpus)
+            {
+                new HtmlOutputter<RuntimeException>((buffer, offset, count) -> length[0] += count).output(page);
+            }
+            long end = System.nanoTime();
+            bytes += middle - start;
+            chars += end - middle;
+        }
+        if (round > 0)
+        {
+            System.out.printf("%-7s %d pages: %.1f MB retained, render as UTF-8 %.3f s, as chars %.3f s%n", label,
+                    corpus.length, retained / 1048576.0, bytes / 1000000000.0, chars / 1000000000.0);
+        }
+    }
+}
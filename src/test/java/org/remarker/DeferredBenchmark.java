@@ -0,0 +1,84 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.util.stream.IntStream;
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class DeferredBenchmark
+{
+    static Element row(int i)
+    {
+        return TR(TD(A(Href("/items/" + i), "Item #" + i)), TD("In stock"), TD(Class("number"), i * 31));
+    }
+
+    static Element eagerPage(int rows)
+    {
+        return HTML(BODY(TABLE(TBODY(IntStream.range(0, rows).mapToObj(DeferredBenchmark::row)))));
+    }
+
+    static Element deferredPage(int rows)
+    {
+        return HTML(BODY(TABLE(TBODY(deferred(() -> IntStream.range(0, rows).mapToObj(DeferredBenchmark::row))))));
+    }
+
+    static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args)
+    {
+        int rows = 100000;
+        int r = 20;
+
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            for (boolean deferred : new boolean[] {false, true})
+            {
+                long[] bytes = new long[1];
+                long total = 0;
+                long retained = 0;
+                for (int i = 0; i < r; i++)
+                {
+                    long before = usedMemory();
+                    long start = System.nanoTime();
+                    Element page = deferred ? deferredPage(rows) : eagerPage(rows);
+                    long built = System.nanoTime();
+                    retained += usedMemory() - before;
+                    long output = System.nanoTime();
+                    HtmlOutputter.<RuntimeException>utf8((buffer, offset, length) -> bytes[0] += length).output(page);
+                    long end = System.nanoTime();
+                    total += (built - start) + (end - output);
+                }
+                if (round > 0)
+                {
+                    System.out.printf("%-8s %9d bytes %10d bytes held %8.3f s%n", deferred ? "deferred" : "eager",
+                            bytes[0] / r, retained / r, total / 1000000000.0);
+                }
+            }
+        }
+    }
+}
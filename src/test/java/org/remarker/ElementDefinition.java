@@ -35,9 +35,12 @@ class ElementDefinition
     void generateCode()
     {
         System.out.printf("%n");
+        System.out.printf("    public static final ElementType %s_TYPE = ElementType.register(\"%s\", %s, %s);%n", uppercase,
+                uppercase, breakStyle, contentModel);
+        System.out.printf("%n");
         System.out.printf("    public static Element %s(Object... contents)%n", uppercase);
         System.out.printf("    {%n");
-        System.out.printf("        return new Element(\"%s\", %s, %s, contents);%n", uppercase, breakStyle, contentModel);
+        System.out.printf("        return new Element(%s_TYPE, contents);%n", uppercase);
         System.out.printf("    }%n");
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.util.function.IntFunction;
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class ElementSizeBenchmark
+{
+    public static void main(String[] args)
+    {
+        int n = 200000;
+        measure("TD()", n, i -> TD());
+        measure("TD(text)", n, i -> TD("In stock"));
+        measure("A(href, text)", n, i -> A(Href("/items"), "Item"));
+        measure("INPUT(type, name, value)", n, i -> INPUT(Type("checkbox"), Name("selected"), Value("1")));
+        measure("TR(class, 4 x TD(text))", n / 4, i -> TR(Class("even"), TD("a"), TD("b"), TD("c"), TD("d")));
+    }
+
+    /**
+     * Reports how much heap the elements retain, beyond the text and attributes they share.
+     */
+    private static void measure(String name, int n, IntFunction<Element> factory)
+    {
+        Element[] elements = new Element[n];
+        elements[0] = factory.apply(0);
+        long before = usedMemory();
+        for (int i = 0; i < n; i++)
+        {
+            elements[i] = factory.apply(i);
+        }
+        long after = usedMemory();
+        System.out.printf("%-26s %6.1f bytes per element%n", name, (double) (after - before) / n);
+        if (elements[n - 1] == null)
+        {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static long usedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
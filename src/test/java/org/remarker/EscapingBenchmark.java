@@ -17,6 +17,8 @@
 package org.remarker;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.function.Function;
 
 public class EscapingBenchmark
 {
@@ -33,20 +35,38 @@ public class EscapingBenchmark
         }
         String inputString = inputBuilder.toString();
         String outputString = outputBuilder.toString();
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            run(round, "StringWriter", r, inputString, outputString, input -> {
+                StringWriter writer = new StringWriter();
+                new HtmlOutputter<RuntimeException>(writer::write).output(input);
+                return writer.toString();
+            });
+            run(round, "render", r, inputString, outputString, HtmlOutputter::render);
+        }
+    }
+
+    private static void run(int round, String name, int r, String input, String expected, Function<String, String> render)
+    {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
         long total = 0;
         for (int i = 0; i < r; i++)
         {
-            StringWriter writer = new StringWriter();
-            HtmlOutputter<RuntimeException> outputter = new HtmlOutputter<>(writer::write);
             long start = System.nanoTime();
-            outputter.output(inputString);
+            String output = render.apply(input);
             long end = System.nanoTime();
             total += (end - start);
-            if (!outputString.equals(writer.toString()))
+            if (!expected.equals(output))
             {
                 throw new IllegalStateException("output not expected");
             }
         }
-        System.out.println(total / 1000000000.0);
+        allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocated;
+        if (round > 0)
+        {
+            System.out.printf("%-12s %8.3f s %10d bytes allocated per call%n", name, total / 1000000000.0, allocated / r);
+        }
     }
 }
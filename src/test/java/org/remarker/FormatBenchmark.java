@@ -0,0 +1,70 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class FormatBenchmark
+{
+    static Element reportPage(int rows)
+    {
+        Element[] trs = new Element[rows];
+        for (int i = 0; i < rows; i++)
+        {
+            trs[i] = TR(Class(i % 2 == 0 ? "even" : "odd"),
+                    TD(A(Href("/items/" + i), "Item #" + i)),
+                    TD("In stock"),
+                    TD(Class("number"), i * 31),
+                    TD(INPUT(Type("checkbox"), Name("selected"), Value(String.valueOf(i)))));
+        }
+        return HTML(HEAD(TITLE("Report")), BODY(
+                DIV(Class("header"), H1("Report"), P("Generated for you.")),
+                FORM(TABLE(THEAD(TR(TH("Item"), TH("Status"), TH("Count"), TH())), TBODY((Object) trs))),
+                UL(LI("First note"), LI("Second note"))));
+    }
+
+    public static void main(String[] args)
+    {
+        int r = 100;
+        Element page = reportPage(10000);
+
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            for (HtmlOutputter.Format format : HtmlOutputter.Format.values())
+            {
+                long[] bytes = new long[1];
+                long total = 0;
+                for (int i = 0; i < r; i++)
+                {
+                    HtmlOutputter<RuntimeException> outputter = HtmlOutputter.utf8(
+                            (buffer, offset, length) -> bytes[0] += length, format);
+                    long start = System.nanoTime();
+                    outputter.output(page);
+                    long end = System.nanoTime();
+                    total += (end - start);
+                }
+                if (round > 0)
+                {
+                    System.out.printf("%-26s %9d bytes %8.3f s%n", format, bytes[0] / r, total / 1000000000.0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class FrozenBenchmark
+{
+    static Object[] header()
+    {
+        Element[] links = new Element[40];
+        for (int i = 0; i < links.length; i++)
+        {
+            links[i] = LI(Class("nav-item"), A(Class("nav-link"), Href("/section/" + i), "Section & topic " + i));
+        }
+        return new Object[] {
+                DIV(Class("header"), H1(A(Href("/"), "Example Site")), FORM(Action("/search"),
+                        INPUT(Type("text"), Name("q")), INPUT(Type("submit"), Value("Search")))),
+                UL(Class("nav"), (Object) links),
+        };
+    }
+
+    static Object[] footer()
+    {
+        return new Object[] {DIV(Class("footer"), P("Copyright © Example <all rights reserved>"),
+                P(A(Href("/privacy"), "Privacy"), " | ", A(Href("/terms"), "Terms")))};
+    }
+
+    static Element page(Object header, Object footer, int i)
+    {
+        return HTML(HEAD(TITLE("Page " + i)), BODY(header, DIV(Class("content"), H2("Page " + i), P("Body text.")), footer));
+    }
+
+    public static void main(String[] args)
+    {
+        int r = 20000;
+
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            for (HtmlOutputter.Format format : HtmlOutputter.Format.values())
+            {
+                Object[] header = header();
+                Object[] footer = footer();
+                Frozen[] frozen = {HtmlOutputter.freeze(format, 2, header), HtmlOutputter.freeze(format, 2, footer)};
+                for (boolean freeze : new boolean[] {false, true})
+                {
+                    long[] bytes = new long[1];
+                    long start = System.nanoTime();
+                    for (int i = 0; i < r; i++)
+                    {
+                        HtmlOutputter.<RuntimeException>utf8((buffer, offset, length) -> bytes[0] += length, format)
+                                .output(freeze ? page(frozen[0], frozen[1], i) : page(header, footer, i));
+                    }
+                    long end = System.nanoTime();
+                    if (round > 0)
+                    {
+                        System.out.printf("%-26s %-6s %6d bytes %8.3f s%n", format, freeze ? "frozen" : "live",
+                                bytes[0] / r, (end - start) / 1000000000.0);
+                    }
+                }
+            }
+        }
+    }
+}
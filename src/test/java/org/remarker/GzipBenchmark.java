@@ -0,0 +1,116 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.io.*;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import org.remarker.dom.*;
+
+public class GzipBenchmark
+{
+    public static void main(String[] args) throws IOException
+    {
+        int r = 50;
+        Element page = FormatBenchmark.reportPage(10000);
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        HtmlOutputter.<RuntimeException>utf8(plain::write).output(page);
+        System.out.printf("uncompressed: %d bytes%n", plain.size());
+
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            for (int level : new int[] { Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION })
+            {
+                long[] bytes = new long[1];
+                long total = 0;
+                for (int i = 0; i < r; i++)
+                {
+                    long start = System.nanoTime();
+                    ByteArrayOutputStream rendered = new ByteArrayOutputStream();
+                    HtmlOutputter.<RuntimeException>utf8(rendered::write).output(page);
+                    OutputStream gzip = new GZIPOutputStream(new CountingOutputStream(bytes))
+                    {
+                        {
+                            def.setLevel(level);
+                        }
+                    };
+                    rendered.writeTo(gzip);
+                    gzip.close();
+                    long end = System.nanoTime();
+                    total += (end - start);
+                }
+                if (round > 0)
+                {
+                    report("render, then gzip", level, plain.size(), bytes[0] / r, total);
+                }
+
+                for (String flushAfter : new String[] { null, "HEAD", "TR" })
+                {
+                    Predicate<Element> predicate = flushAfter == null ? null : e -> e.getName().equals(flushAfter);
+                    bytes[0] = 0;
+                    total = 0;
+                    for (int i = 0; i < r; i++)
+                    {
+                        long start = System.nanoTime();
+                        try (HtmlOutputter<RuntimeException> outputter = HtmlOutputter.gzip(
+                                (buffer, offset, length) -> bytes[0] += length, HtmlOutputter.Format.PRETTY, level, predicate))
+                        {
+                            outputter.output(page);
+                        }
+                        long end = System.nanoTime();
+                        total += (end - start);
+                    }
+                    if (round > 0)
+                    {
+                        report(flushAfter == null ? "gzip stage" : "gzip stage, flush after " + flushAfter,
+                                level, plain.size(), bytes[0] / r, total);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void report(String name, int level, long plain, long compressed, long total)
+    {
+        System.out.printf("%-29s level %2d: %8d bytes (%5.2f%%) %8.3f s%n", name, level, compressed,
+                100.0 * compressed / plain, total / 1000000000.0);
+    }
+
+    private static final class CountingOutputStream extends OutputStream
+    {
+        private final long[] count;
+
+        CountingOutputStream(long[] count)
+        {
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b)
+        {
+            count[0]++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            count[0] += len;
+        }
+    }
+}
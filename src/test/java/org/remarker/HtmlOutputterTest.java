@@ -17,9 +17,25 @@
 package org.remarker;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.stream.IntStream;
+import java.util.zip.Inflater;
 import junit.framework.*;
 import org.remarker.dom.*;
 
+import static java.util.Arrays.asList;
 import static org.remarker.Html.*;
 import static org.remarker.HtmlTest.assertThrowsIllegalArgumentException;
 
@@ -232,6 +248,256 @@ public class HtmlOutputterTest extends TestCase
                 "</HTML>");
     }
 
+    public void testMinifiedDocument()
+    {
+        checkHtml(HtmlOutputter.Format.MINIFIED,
+                "<!DOCTYPE HTML><HTML><HEAD><TITLE>Example</TITLE></HEAD><BODY><H1>Hello!</H1>"
+                        + "<P>Look...\u00A0<A href=\"http://...\" title=\"Somewhere Else\">Go There.</A></P></BODY></HTML>",
+                HTML(HEAD(TITLE("Example")), BODY(H1("Hello!"), P("Look...", _nbsp, A(Href("http://..."), Title("Somewhere Else"),
+                        "Go There.")))));
+    }
+
+    public void testMinifiedLineBreaks()
+    {
+        checkHtml(HtmlOutputter.Format.MINIFIED,
+                "<BODY><P>First line.\r\nSecond line.</P><SCRIPT>var v;\r\n  go(v);</SCRIPT>\r\n"
+                        + "Hello<PRE>\r\n\r\nFirst line.\r\nSecond line.</PRE><TEXTAREA>\r\nOne\r\nTwo</TEXTAREA>World</BODY>",
+                BODY(P("First line.\nSecond line."), SCRIPT("var v;\n  go(v);"),
+                        "Hello", PRE("\nFirst line.\nSecond line."), TEXTAREA("One\nTwo"), "World"));
+
+        // DEL and INS are rendered inline, so the line breaks around them show up as spaces
+        checkHtml(HtmlOutputter.Format.MINIFIED,
+                "<P>Price:\r\n<DEL>$10</DEL>\r\n<INS>$8</INS>\r\nnow</P><DIV><DEL>x</DEL></DIV>",
+                P("Price:", DEL("$10"), INS("$8"), "now"), DIV(DEL("x")));
+
+        // and so are the ones around elements that aren't shown at all
+        checkHtml(HtmlOutputter.Format.MINIFIED, "<P>a\r\n<SCRIPT>x()</SCRIPT>\r\nb</P>", P("a", SCRIPT("x()"), "b"));
+        checkHtml(HtmlOutputter.Format.MINIFIED, "<P>a\r\n<NOSCRIPT>n</NOSCRIPT><STYLE></STYLE><LINK>\r\nb</P>",
+                P("a", NOSCRIPT("n"), STYLE(), LINK(), "b"));
+        checkHtml(HtmlOutputter.Format.MINIFIED, "<HEAD><TITLE>T</TITLE><META><SCRIPT></SCRIPT></HEAD>",
+                HEAD(TITLE("T"), META(), SCRIPT()));
+    }
+
+    public void testOmittedEndTags()
+    {
+        checkHtml(HtmlOutputter.Format.MINIFIED_OMITTING_END_TAGS,
+                "<!DOCTYPE HTML><HTML><HEAD><TITLE>T</TITLE><BODY><UL><LI>a<LI>b</UL><P>x<DIV>y</DIV><P>z</P>"
+                        + "<TABLE><TR><TD>1<TD>2<TR><TD>3</TABLE><SELECT><OPTION>o1<OPTION>o2</SELECT>"
+                        + "<DL><DT>t<DD>d</DL><P>text</P>!<A><P>kept</P></A>",
+                HTML(HEAD(TITLE("T")), BODY(UL(LI("a"), LI("b")), P("x"), DIV("y"), P("z"),
+                        TABLE(TR(TD("1"), TD("2")), TR(TD("3"))), SELECT(OPTION("o1"), OPTION("o2")),
+                        DL(DT("t"), DD("d")), P("text"), "!", A(P("kept")))));
+        checkHtml(HtmlOutputter.Format.MINIFIED_OMITTING_END_TAGS, "<LI>a<LI>b</LI>", LI("a"), LI("b"));
+    }
+
+    public void testDeferred()
+    {
+        int[] calls = new int[1];
+        Element table = TABLE(deferred(() -> {
+            calls[0]++;
+            return IntStream.range(0, 3).mapToObj(i -> TR(TD(i), TD("x", Optional.of(i))));
+        }));
+        assertEquals(0, calls[0]);
+        checkHtml(HtmlOutputter.Format.MINIFIED_OMITTING_END_TAGS,
+                "<TABLE><TR><TD>0<TD>x0<TR><TD>1<TD>x1<TR><TD>2<TD>x2</TABLE>", table);
+        assertTrue(calls[0] > 0);
+        for (HtmlOutputter.Format format : HtmlOutputter.Format.values())
+        {
+            assertEquals(HtmlOutputter.render(format, TABLE(TR(TD(0), TD("x0")), TR(TD(1), TD("x1")), TR(TD(2), TD("x2")))),
+                    HtmlOutputter.render(format, table));
+        }
+        checkHtml(HtmlOutputter.Format.MINIFIED_OMITTING_END_TAGS, "<UL><LI>a</LI><LI>b<LI>c<LI>d</UL>",
+                UL(LI("a"), deferred(() -> asList(LI("b"), deferred(() -> LI("c")))), LI("d")));
+        // laid out before the deferred contents are known, as if they weren't inline
+        checkHtml(P(deferred(() -> "x")), "<P>", "  x", "</P>");
+        checkHtml(HtmlOutputter.Format.MINIFIED, "<P>x</P>", P(deferred(() -> "x")));
+
+        String[] text = {"short"};
+        Element page = DIV(P(deferred(() -> text[0])));
+        HtmlOutputter.SizeCache cache = new HtmlOutputter.SizeCache();
+        assertEquals(23, cache.measure(HtmlOutputter.Format.MINIFIED, page).getChars());
+        text[0] = "much longer";
+        assertEquals(29, cache.measure(HtmlOutputter.Format.MINIFIED, page).getChars());
+
+        assertThrowsIllegalArgumentException("Attribute 'class' must be contained in an element",
+                () -> HtmlOutputter.render(DIV(deferred(() -> Class("x")))));
+    }
+
+    public void testTrustedHtml()
+    {
+        TrustedHtml html = unsafeTrustedHtml("<b>Caf\u00E9</b> &amp; <i>\u6C34</i>");
+        checkHtml(HtmlOutputter.Format.MINIFIED, "<P>a&lt;b<b>Caf\u00E9</b> &amp; <i>\u6C34</i></P>",
+                P("a<b", html, unsafeTrustedHtml("")));
+        checkHtml(HtmlOutputter.Format.MINIFIED_OMITTING_END_TAGS, "<DIV><P>x</P><p>y</DIV>",
+                DIV(P("x"), unsafeTrustedHtml("<p>y")));
+        checkHtml(P(html), "<P><b>Caf\u00E9</b> &amp; <i>\u6C34</i></P>\r\n");
+    }
+
+    public void testFrozen()
+    {
+        Object[][] chrome = {
+                {DIV(Class("header"), H1("Site"), UL(LI("a"), LI("b"))), "\n"},
+                {LI("b"), LI("c")},
+                {HTML(BODY(P("x")))},
+                {B("b"), "\r"},
+                {DEL("d"), "e"},
+                {"s", SCRIPT("x()")},
+                {},
+        };
+        for (HtmlOutputter.Format format : HtmlOutputter.Format.values())
+        {
+            for (int indentLevel = 0; indentLevel < 3; indentLevel++)
+            {
+                for (Object[] contents : chrome)
+                {
+                    Frozen frozen = HtmlOutputter.freeze(format, indentLevel, contents);
+                    assertEquals(HtmlOutputter.render(format, contents), HtmlOutputter.render(format, frozen));
+                    assertEquals(HtmlOutputter.render(format, HTML(BODY(contents, P("x")))),
+                            HtmlOutputter.render(format, HTML(BODY(frozen, P("x")))));
+                    assertEquals(HtmlOutputter.render(format, UL(LI("a"), contents)),
+                            HtmlOutputter.render(format, UL(LI("a"), frozen)));
+                    assertEquals(HtmlOutputter.render(format, P("a", contents, "\n")),
+                            HtmlOutputter.render(format, P("a", frozen, "\n")));
+                    assertEquals(HtmlOutputter.render(format, DIV(HR(), contents, "x")),
+                            HtmlOutputter.render(format, DIV(HR(), frozen, "x")));
+                    assertEquals(HtmlOutputter.render(format, PRE(contents)), HtmlOutputter.render(format, PRE(frozen)));
+                    checkSize(format, HtmlOutputter.render(format, DIV(DIV(contents))), DIV(DIV(frozen)));
+                }
+            }
+        }
+
+        Element header = DIV(H1("Site"));
+        checkHtml(HtmlOutputter.Format.PRETTY, "<BODY>\r\n<!--copied-->  <P>x</P>\r\n</BODY>\r\n",
+                BODY(copied(HtmlOutputter.Format.PRETTY, 1, header), P("x")));
+        checkHtml(HtmlOutputter.Format.PRETTY, "<BODY>\r\n  <DIV>\r\n    <H1>Site</H1>\r\n  </DIV>\r\n</BODY>\r\n",
+                BODY(copied(HtmlOutputter.Format.PRETTY, 0, header)));
+        checkHtml(HtmlOutputter.Format.MINIFIED, "<BODY><DIV><!--copied--></DIV></BODY>",
+                BODY(DIV(copied(HtmlOutputter.Format.MINIFIED, 0, header))));
+        checkHtml(HtmlOutputter.Format.MINIFIED_OMITTING_END_TAGS, "<UL><LI>a<LI>b</UL><!--copied-->",
+                UL(LI("a"), copied(HtmlOutputter.Format.MINIFIED_OMITTING_END_TAGS, 0, LI("b"))),
+                copied(HtmlOutputter.Format.MINIFIED_OMITTING_END_TAGS, 0, LI("b")));
+
+        // a surrogate pair split at the edge of the frozen HTML still comes out whole
+        Frozen high = HtmlOutputter.freeze(HtmlOutputter.Format.MINIFIED, 0, "\uD83D");
+        assertEquals("<P>\uD83D\uDE00</P>", utf8(HtmlOutputter.Format.MINIFIED, P(high, "\uDE00")));
+        checkSize(HtmlOutputter.Format.MINIFIED, "<P>\uD83D\uDE00</P>", P(high, "\uDE00"));
+
+        assertThrowsIllegalArgumentException("Deferred contents can't be frozen",
+                () -> HtmlOutputter.freeze(HtmlOutputter.Format.PRETTY, 0, DIV(deferred(() -> "x"))));
+    }
+
+    private static String utf8(HtmlOutputter.Format format, Object... contents)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HtmlOutputter.<RuntimeException>utf8(bytes::write, format).output(contents);
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String utf8(HtmlOutputter.Format format, Template.Bound bound)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HtmlOutputter.<RuntimeException>utf8(bytes::write, format).output(bound);
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Frozen contents that give themselves away when they are copied rather than rendered.
+     */
+    private static Frozen copied(HtmlOutputter.Format format, int indentLevel, Object... contents)
+    {
+        return Frozen.unsafe(asHtml(contents), unsafeTrustedHtml("<!--copied-->"),
+                HtmlOutputter.freeze(format, indentLevel, contents).getContext());
+    }
+
+    private static final Slot<String> TITLE_SLOT = slot("title", Html::TITLE);
+    private static final Slot<Object> CONTENT_SLOT = slot("content");
+    private static final Slot<List<String>> ITEMS_SLOT = slot("items", items -> items.stream().map(Html::LI));
+
+    private static Element skeleton(Object title, Object content, Object items)
+    {
+        return HTML(HEAD(title), BODY(DIV(Class("header"), H1("Site")), content,
+                P("Footer ", content), UL(LI("first"), items), PRE(content), content));
+    }
+
+    public void testTemplate()
+    {
+        Object[] contents = {"text", "", null, "a\r", "b\n", "c\r\n", DIV("block"), asList(B("x"), "y\r"), PRE("z\r")};
+        for (HtmlOutputter.Format format : HtmlOutputter.Format.values())
+        {
+            Template template = Template.compile(format, skeleton(TITLE_SLOT, CONTENT_SLOT, ITEMS_SLOT));
+            assertTrue(template.context >= 0);
+            for (Object content : contents)
+            {
+                for (List<String> items : asList(Collections.<String>emptyList(), asList("i", "j")))
+                {
+                    Template.Bound bound = template.fill(TITLE_SLOT, "Page").fill(CONTENT_SLOT, content)
+                            .fill(ITEMS_SLOT, items);
+                    String expected = HtmlOutputter.render(format, skeleton(deferred(() -> TITLE("Page")),
+                            deferred(() -> content), deferred(() -> items.stream().map(Html::LI))));
+                    StringWriter writer = new StringWriter();
+                    HtmlOutputter<RuntimeException> outputter = new HtmlOutputter<>(writer::write, format);
+                    outputter.output(bound);
+                    assertEquals(expected, writer.toString());
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    HtmlOutputter<RuntimeException> utf8 = HtmlOutputter.utf8(bytes::write, format);
+                    utf8.output(bound);
+                    utf8.output(bound);
+                    assertEquals(expected + expected.replace("<!DOCTYPE HTML>" + (format == HtmlOutputter.Format.PRETTY ? "\r\n" : ""), ""),
+                            new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        Template template = Template.compile(HtmlOutputter.Format.MINIFIED, CONTENT_SLOT, HTML(BODY()));
+        assertEquals(-1, template.context);
+        StringWriter writer = new StringWriter();
+        new HtmlOutputter<>(writer::write, HtmlOutputter.Format.MINIFIED).output(template.fill(CONTENT_SLOT, "x"));
+        assertEquals("x<HTML><BODY></BODY></HTML>", writer.toString());
+
+        // the chunks on either side of a slot can each hold half of a surrogate pair
+        Template split = Template.compile(HtmlOutputter.Format.MINIFIED, P("\uD83D", CONTENT_SLOT, "\uDE00"));
+        assertEquals("<P>\uD83D\uDE00</P>", utf8(HtmlOutputter.Format.MINIFIED, split.fill(CONTENT_SLOT, "")));
+        assertEquals("<P>?x?</P>", utf8(HtmlOutputter.Format.MINIFIED, split.fill(CONTENT_SLOT, "x")));
+
+        Template page = Template.compile(HtmlOutputter.Format.PRETTY, skeleton(TITLE_SLOT, CONTENT_SLOT, ITEMS_SLOT));
+        HtmlOutputter<RuntimeException> outputter = new HtmlOutputter<>(writer::write);
+        assertThrowsIllegalArgumentException("Slot 'title' is not filled",
+                () -> outputter.output(page.fill(CONTENT_SLOT, "x")));
+        assertThrowsIllegalArgumentException("Slot 'other' is not in the template", () -> page.fill(slot("other"), "x"));
+        assertThrowsIllegalArgumentException("Slot 'content' must be filled by a template",
+                () -> HtmlOutputter.render(DIV(CONTENT_SLOT)));
+        assertThrowsIllegalArgumentException("Template must not have deferred contents",
+                () -> Template.compile(HtmlOutputter.Format.PRETTY, DIV(deferred(() -> "x"))));
+    }
+
+    private void checkHtml(HtmlOutputter.Format format, String expected, Object... contents)
+    {
+        StringWriter writer = new StringWriter();
+        HtmlOutputter<RuntimeException> outputter = new HtmlOutputter<>(writer::write, format);
+        outputter.output(contents);
+        assertEquals(expected, writer.toString());
+        assertEquals(expected, HtmlOutputter.render(format, contents));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HtmlOutputter.<RuntimeException>utf8(bytes::write, format).output(contents);
+        assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        checkSize(format, expected, contents);
+    }
+
+    private void checkSize(HtmlOutputter.Format format, String expected, Object... contents)
+    {
+        long bytes = expected.getBytes(StandardCharsets.UTF_8).length;
+        HtmlOutputter.Size size = HtmlOutputter.measure(format, contents);
+        assertEquals(expected.length(), size.getChars());
+        assertEquals(bytes, size.getUtf8Bytes());
+        HtmlOutputter.SizeCache cache = new HtmlOutputter.SizeCache();
+        for (int i = 0; i < 2; i++)
+        {
+            size = cache.measure(format, contents);
+            assertEquals(expected.length(), size.getChars());
+            assertEquals(bytes, size.getUtf8Bytes());
+        }
+    }
+
     private void checkHtml(Element html, String... expectedLines)
     {
         StringBuilder expected = new StringBuilder();
@@ -247,6 +513,338 @@ public class HtmlOutputterTest extends TestCase
         HtmlOutputter<RuntimeException> outputter = new HtmlOutputter<>(writer::write);
         outputter.output(html);
         assertEquals(expected.toString(), writer.toString());
+        assertEquals(expected.toString(), HtmlOutputter.render(html));
+        checkUtf8(expected.toString(), html);
+    }
+
+    private void checkUtf8(String expected, Object... contents)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HtmlOutputter<RuntimeException> outputter = HtmlOutputter.utf8(bytes::write);
+        outputter.output(contents);
+        assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        assertTrue(Arrays.equals(expected.getBytes(StandardCharsets.UTF_8), bytes.toByteArray()));
+        assertTrue(Arrays.equals(bytes.toByteArray(), HtmlOutputter.render(contents).getBytes(StandardCharsets.UTF_8)));
+        checkSize(HtmlOutputter.Format.PRETTY, expected, contents);
+    }
+
+    public void testUtf8()
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3000; i++)
+        {
+            text.append("a\u00E9\u6C34\uD834\uDD1E&");
+        }
+        checkUtf8("<P>" + text.toString().replace("&", "&amp;") + "</P>\r\n", P(text));
+    }
+
+    public void testTextPieces()
+    {
+        checkUtf8(HtmlOutputter.render(P("a\r\nb<\uD834\uDD1E")), P("a\r", "\nb", "<", "\uD834", "\uDD1E"));
+        checkUtf8(HtmlOutputter.render(DIV(P("x\ry"))), DIV(P("x", "\r", "y")));
+    }
+
+    public void testCharSequenceText()
+    {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 2000; i++)
+        {
+            log.append("line ").append(i).append(" <ok> & done\n");
+        }
+        String expected = HtmlOutputter.render(PRE(log.toString()));
+        assertEquals(expected, HtmlOutputter.render(PRE(text(log))));
+        assertEquals(expected, HtmlOutputter.render(PRE(text(CharBuffer.wrap(log)))));
+        assertEquals(expected, HtmlOutputter.render(PRE(text(new StringBuffer(log)))));
+        checkUtf8(expected, PRE(text(log)));
+
+        char[] chars = "xx<a>\r\nb&yy".toCharArray();
+        assertEquals("<P>\r\n  &lt;a&gt;\r\n  b&amp;\r\n</P>\r\n", HtmlOutputter.render(P(text(chars, 2, 7))));
+        assertEquals("<P>\r\n  &lt;a&gt;\r\n  b&amp;\r\n</P>\r\n", HtmlOutputter.render(P(text(CharBuffer.wrap(chars, 2, 7)))));
+
+        // a plain sequence is copied, and only an explicit text isn't
+        StringBuilder name = new StringBuilder("Jo");
+        Element copied = P("Hi ", name);
+        Element live = P("Hi ", text(name));
+        name.append("e");
+        assertEquals("Hi Jo", copied.getAllText());
+        assertEquals("<P>Hi Jo</P>\r\n", HtmlOutputter.render(copied));
+        assertEquals("Hi Joe", live.getAllText());
+        assertEquals("<P>Hi Joe</P>\r\n", HtmlOutputter.render(live));
+
+        // raw text is always copied before it's checked for an end tag
+        StringBuilder script = new StringBuilder("var x = 1;");
+        Element checked = SCRIPT(text(script));
+        script.append("</script><img src=x onerror=alert(1)>");
+        assertEquals("<SCRIPT>var x = 1;</SCRIPT>\r\n", HtmlOutputter.render(checked));
+    }
+
+    public void testCompactText()
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++)
+        {
+            text.append("Caf\u00E9 <").append(i).append("> & co.\n");
+        }
+        String plain = text.toString();
+        String expected = HtmlOutputter.render(DIV(plain));
+        checkUtf8(expected, DIV(compactText(plain)));
+        checkUtf8(expected, DIV(compactText(plain.getBytes(StandardCharsets.UTF_8), 0, plain.length() + 300)));
+        assertTrue(compactText(plain).getPiece(0) instanceof CompactString);
+        assertEquals(plain, compactText(plain).getValue());
+
+        byte[] ascii = "xx<a>yy".getBytes(StandardCharsets.US_ASCII);
+        checkUtf8("<P>&lt;a&gt;</P>\r\n", P(compactText(ascii, 2, 3)));
+        checkUtf8("<P>\u6C34 &amp;</P>\r\n", P(compactText("\u6C34 &")));
+        assertEquals("\u6C34", compactText("\u6C34").getPiece(0));
+        assertEquals("a\u00E9", compactText("xa\u00E9").getPiece(0).subSequence(1, 3).toString());
+
+        // copied whether or not it can be compacted
+        StringBuilder latin1 = new StringBuilder("abc");
+        StringBuilder other = new StringBuilder("\u6C34");
+        Element copied = P(compactText(latin1), compactText(other));
+        latin1.append(" changed");
+        other.append(" changed");
+        assertEquals("<P>abc\u6C34</P>\r\n", HtmlOutputter.render(copied));
+        assertTrue(compactText(other).getPiece(0) instanceof String);
+    }
+
+    public void testUtf8UnpairedSurrogates()
+    {
+        checkUtf8("<P>?x?\u00E9?</P>\r\n", P("\uD834x\uDD1E\u00E9\uD834"));
+    }
+
+    public void testMeasure()
+    {
+        Element shared = DIV(P("Caf\u00E9 \u6C34"), UL(LI("One"), LI("Two")));
+        Element page = HTML(BODY(shared, DIV(DIV(shared)), SPAN("\uD834"), SPAN(SPAN("\uDD1E")), PRE(shared)));
+        HtmlOutputter.SizeCache cache = new HtmlOutputter.SizeCache();
+        for (HtmlOutputter.Format format : HtmlOutputter.Format.values())
+        {
+            StringWriter writer = new StringWriter();
+            new HtmlOutputter<>(writer::write, format).output(page);
+            String expected = writer.toString();
+            checkSize(format, expected, page);
+            for (int i = 0; i < 2; i++)
+            {
+                HtmlOutputter.Size size = cache.measure(format, page);
+                assertEquals(expected.length(), size.getChars());
+                assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, size.getUtf8Bytes());
+            }
+        }
+    }
+
+    public void testMutableTextIsRenderedAgain()
+    {
+        StringBuilder name = new StringBuilder("Jo");
+        Element page = DIV(P("Hello, ", text(name)), UL(LI("a")));
+        assertTrue(page.hasMutableText());
+        assertFalse(page.withAttribute(Class("x")).replaceChild(0, P("Hello")).hasMutableText());
+        HtmlOutputter.SizeCache cache = new HtmlOutputter.SizeCache();
+        assertEquals(HtmlOutputter.render(page).length(), cache.measure(HtmlOutputter.Format.PRETTY, page).getChars());
+        Frozen frozen = HtmlOutputter.freeze(HtmlOutputter.Format.PRETTY, 0, page);
+        Template template = Template.compile(HtmlOutputter.Format.PRETTY, page, CONTENT_SLOT);
+        assertEquals(-1, template.context);
+
+        name.append(" Bloggs, and everyone else");
+        String expected = HtmlOutputter.render(page);
+        assertEquals(expected.length(), cache.measure(HtmlOutputter.Format.PRETTY, page).getChars());
+        assertEquals(HtmlOutputter.render(BODY(page)).length(),
+                cache.measure(HtmlOutputter.Format.PRETTY, BODY(page)).getChars());
+        assertEquals(expected, HtmlOutputter.render(frozen));
+        assertEquals(HtmlOutputter.render(page, "x"), utf8(HtmlOutputter.Format.PRETTY, template.fill(CONTENT_SLOT, "x")));
+    }
+
+    public void testGzip() throws IOException
+    {
+        Element html = HTML(HEAD(TITLE("Example")), BODY(P("Caf\u00E9 \u6C34 \uD834\uDD1E"), P(TEXT)));
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        HtmlOutputter.<RuntimeException>utf8(plain::write).output(html);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        HtmlOutputter<RuntimeException> outputter = HtmlOutputter.gzip(compressed::write, HtmlOutputter.Format.PRETTY,
+                Deflater.BEST_COMPRESSION, null);
+        outputter.output(html);
+        assertTrue(compressed.size() < plain.size() / 10);
+        assertTrue(Arrays.equals(plain.toByteArray(), gunzip(compressed.toByteArray())));
+
+        compressed.reset();
+        outputter.output(P("Again"));
+        assertEquals("<P>Again</P>\r\n", new String(gunzip(compressed.toByteArray()), StandardCharsets.UTF_8));
+
+        outputter.close();
+    }
+
+    public void testGzipFlushAfter() throws DataFormatException
+    {
+        List<byte[]> chunks = new ArrayList<>();
+        HtmlOutputter<RuntimeException> outputter = HtmlOutputter.gzip(
+                (buffer, offset, length) -> chunks.add(Arrays.copyOfRange(buffer, offset, offset + length)),
+                HtmlOutputter.Format.PRETTY, Deflater.DEFAULT_COMPRESSION, element -> element.getName().equals("HEAD"));
+        outputter.output(HTML(HEAD(TITLE("Example")), BODY(P(TEXT))));
+        outputter.close();
+
+        String head = "<!DOCTYPE HTML>\r\n<HTML>\r\n  <HEAD>\r\n    <TITLE>Example</TITLE>\r\n  </HEAD>\r\n";
+        Inflater inflater = new Inflater(true);
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        byte[] buffer = new byte[100000];
+        for (byte[] chunk : chunks.subList(1, chunks.size()))
+        {
+            inflater.setInput(chunk);
+            inflated.write(buffer, 0, inflater.inflate(buffer));
+            if (inflated.size() >= head.length())
+            {
+                break;
+            }
+        }
+        assertEquals(head, new String(inflated.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    public void testChannel() throws IOException
+    {
+        Element html = HTML(BODY(P("Caf\u00E9 \u6C34 \uD834\uDD1E"), P(TEXT), P(TEXT), P(TEXT), P(TEXT), P(TEXT)));
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        HtmlOutputter.<RuntimeException>utf8(plain::write).output(html);
+        assertTrue(plain.size() > 16 * 64 * 1024);
+
+        ByteArrayOutputStream gathered = new ByteArrayOutputStream();
+        int[] writes = new int[1];
+        GatheringByteChannel channel = new GatheringByteChannel()
+        {
+            @Override
+            public long write(ByteBuffer[] sources, int offset, int length)
+            {
+                writes[0]++;
+                long total = 0;
+                for (int i = offset; i < offset + length; i++)
+                {
+                    total += write(sources[i]);
+                }
+                return total;
+            }
+
+            @Override
+            public long write(ByteBuffer[] sources)
+            {
+                return write(sources, 0, sources.length);
+            }
+
+            @Override
+            public int write(ByteBuffer source)
+            {
+                int n = source.remaining();
+                byte[] bytes = new byte[n];
+                source.get(bytes);
+                gathered.write(bytes, 0, n);
+                return n;
+            }
+
+            @Override
+            public boolean isOpen()
+            {
+                return true;
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+        HtmlOutputter.channel(channel, HtmlOutputter.Format.PRETTY).output(html);
+        assertTrue(Arrays.equals(plain.toByteArray(), gathered.toByteArray()));
+        assertEquals(2, writes[0]);
+
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        HtmlOutputter.channel(Channels.newChannel(written), HtmlOutputter.Format.PRETTY).output(html);
+        assertTrue(Arrays.equals(plain.toByteArray(), written.toByteArray()));
+    }
+
+    public void testRetarget() throws IOException
+    {
+        HtmlOutputter<RuntimeException> outputter = new HtmlOutputter<>((buffer, offset, length) -> {
+            throw new IllegalStateException("broken");
+        });
+        try
+        {
+            outputter.output(HTML(BODY(DIV(P(TEXT)))));
+            fail();
+        }
+        catch (IllegalStateException expected)
+        {
+        }
+        StringWriter writer = new StringWriter();
+        outputter.retarget(writer::write).output(HTML());
+        assertEquals("<!DOCTYPE HTML>\r\n<HTML></HTML>\r\n", writer.toString());
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        HtmlOutputter<RuntimeException> gzip = HtmlOutputter.gzip(compressed::write, HtmlOutputter.Format.PRETTY,
+                Deflater.DEFAULT_COMPRESSION, null);
+        gzip.output(P(TEXT));
+        ByteArrayOutputStream retargeted = new ByteArrayOutputStream();
+        gzip.retargetBytes(retargeted::write).output(HTML());
+        assertEquals("<!DOCTYPE HTML>\r\n<HTML></HTML>\r\n", new String(gunzip(retargeted.toByteArray()),
+                StandardCharsets.UTF_8));
+        gzip.close();
+
+        try
+        {
+            outputter.retargetBytes(retargeted::write);
+            fail();
+        }
+        catch (IllegalStateException expected)
+        {
+            assertEquals("Outputter doesn't write to a ByteConsumer", expected.getMessage());
+        }
+    }
+
+    public void testPool()
+    {
+        HtmlOutputterPool<RuntimeException> pool = new HtmlOutputterPool<>(2, HtmlOutputter.Format.PRETTY);
+        StringWriter writer = new StringWriter();
+        pool.output(writer::write, P("One"));
+        pool.output(writer::write, P("Two"));
+        assertEquals("<P>One</P>\r\n<P>Two</P>\r\n", writer.toString());
+        assertEquals(1, pool.getMisses());
+        assertEquals(1, pool.getHits());
+
+        List<HtmlOutputter<RuntimeException>> acquired = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            acquired.add(pool.acquire(writer::write));
+        }
+        assertEquals(3, pool.getMisses());
+        acquired.forEach(pool::release);
+        assertEquals(2, pool.getIdleCount());
+
+        // a released outputter no longer writes to the consumer it was acquired with
+        StringWriter stale = new StringWriter();
+        HtmlOutputter<RuntimeException> outputter = pool.acquire(stale::write);
+        pool.release(outputter);
+        outputter.output(P("Late"));
+        assertEquals("", stale.toString());
+        try
+        {
+            pool.release(outputter);
+            fail();
+        }
+        catch (IllegalStateException expected)
+        {
+            assertEquals("Outputter was already released", expected.getMessage());
+        }
+    }
+
+    private static final String TEXT = String.join(" ", Collections.nCopies(10000, "Lorem ipsum dolor sit amet."));
+
+    private static byte[] gunzip(byte[] compressed) throws IOException
+    {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed)))
+        {
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) != -1; )
+            {
+                result.write(buffer, 0, n);
+            }
+        }
+        return result.toByteArray();
     }
 
     public void testMixedOutput()
@@ -16,6 +16,7 @@
 
 package org.remarker;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
@@ -24,6 +25,8 @@ import junit.framework.TestCase;
 import org.remarker.dom.*;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static org.remarker.Html.*;
 
 public class HtmlTest extends TestCase
@@ -147,6 +150,10 @@ public class HtmlTest extends TestCase
         assertThrowsIllegalArgumentException(
                 "Element 'STYLE' must not contain text like '</STYLE'",
                 () -> STYLE("Hello </st", "yLe?"));
+        assertThrowsIllegalArgumentException(
+                "Element 'SCRIPT' must not contain text like '</SCRIPT'",
+                () -> SCRIPT("var a = 1;\n", "</script>\nvar b = 2;"));
+        assertEquals("</scrip </ </", SCRIPT("</scrip </ </").getAllText());
     }
 
     public void testOtherEndTagAllowedInEscapableRawTextElements()
@@ -161,6 +168,339 @@ public class HtmlTest extends TestCase
         assertEquals("Hello </TITLE>", TITLE("Hello </TITLE>").getAllText());
     }
 
+    public void testTagNames()
+    {
+        assertSame(TD().getTagName(), new Element("TD", BreakStyle.BLOCK, ContentModel.MIXED).getTagName());
+        assertEquals("<TD", TD().getTagName().getStartTagPrefix().toString());
+        assertEquals("<TD>", TD().getTagName().getStartTag().toString());
+        assertEquals("</TD>", TD().getTagName().getEndTag().toString());
+        assertThrowsIllegalArgumentException(
+                "Element name should be uppercase: td",
+                () -> new Element("td", BreakStyle.BLOCK, ContentModel.MIXED));
+    }
+
+    public void testElementTypes()
+    {
+        ElementType td = TD().getType();
+        assertSame(td, ElementType.of("TD", BreakStyle.BLOCK, ContentModel.MIXED));
+        assertSame(td, new Element("TD", BreakStyle.BLOCK, ContentModel.MIXED).getType());
+        ElementType inlineTd = new Element("TD", BreakStyle.INLINE, ContentModel.MIXED).getType();
+        assertNotSame(td, inlineTd);
+        assertSame(td.getTagName(), inlineTd.getTagName());
+        assertEquals(BreakStyle.INLINE, inlineTd.getBreakStyle());
+        // names that aren't generated are never registered
+        ElementType custom = new Element("CUSTOM", true, false).getType();
+        assertNotSame(ElementType.of("CUSTOM", BreakStyle.INLINE, ContentModel.MIXED), custom);
+        assertEquals(TagName.of("CUSTOM"), custom.getTagName());
+        assertNotSame(TagName.of("CUSTOM"), custom.getTagName());
+        assertEquals("<!DOCTYPE HTML>\r\n<HTML></HTML>\r\n",
+                HtmlOutputter.render(new Element(ElementType.of("HTML", BreakStyle.BLOCK, ContentModel.MIXED))));
+        assertThrowsIllegalArgumentException(
+                "Element name should be uppercase: custom",
+                () -> ElementType.of("custom", BreakStyle.BLOCK, ContentModel.MIXED));
+    }
+
+    public void testAttributeNames()
+    {
+        assertSame(Class("a").getAttributeName(), AttributeName.of("class"));
+        assertSame(Class("a").getAttributeName(), Attribute.quotedString("class", "b").getAttributeName());
+        assertEquals(" checked", Checked().getAttributeName().getPrefix().toString());
+        assertEquals(" class=", Class("a").getAttributeName().getAssignment().toString());
+        assertEquals(" class=\"", Class("a").getAttributeName().getQuotedAssignment().toString());
+        assertThrowsIllegalArgumentException(
+                "Attribute name should be lowercase with hyphens: onClick",
+                () -> Attribute.quotedString("onClick", "x"));
+        assertNull(Attribute.quotedString("onClick", null));
+
+        Attribute custom = Attribute.quotedString("data-custom", 1);
+        assertNotSame(custom.getAttributeName(), AttributeName.of("data-custom"));
+        assertEquals(custom.getAttributeName(), AttributeName.of("data-custom"));
+        assertThrowsIllegalArgumentException("Duplicate attribute 'data-custom' in element 'P'",
+                () -> P(custom, Attribute.quotedString("data-custom", 2)));
+        assertEquals(0, P(custom).withoutAttribute("data-custom").getAttributes().size());
+        assertEquals("2", P(custom).withAttribute(Attribute.quotedString("data-custom", 2)).getAttributes().get(0).getValue());
+    }
+
+    public void testSharedAttributes()
+    {
+        assertSame(Checked(), Checked(true));
+        assertSame(Disabled(), Attribute.traditionalBoolean("disabled", true));
+        assertSame(org.remarker.ext.Htmx.Boost(true), org.remarker.ext.Htmx.Boost(true));
+        assertEquals("true", org.remarker.ext.Htmx.Boost(true).getValue());
+        assertSame(Colspan(1), Colspan(1));
+        assertEquals("1", Colspan(1).getValue());
+        assertNotSame(Colspan(1000), Colspan(1000));
+        assertNotSame(Colspan(-1), Colspan(-1));
+        assertSame(Type("checkbox"), Type("checkbox"));
+        assertNotSame(Title("x"), Title("x"));
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals("x" + i, Align("x" + i).getValue());
+        }
+        assertNotSame(Align("x99"), Align("x99"));
+        assertNull(Type(null));
+    }
+
+    public void testDuplicateAttributes()
+    {
+        assertThrowsIllegalArgumentException(
+                "Duplicate attribute 'class' in element 'P'",
+                () -> P(Class("a"), Id("b"), Class("c")));
+        assertThrowsIllegalArgumentException(
+                "Duplicate attribute 'title' in element 'P'",
+                () -> P(Class("a"), Id("b"), Lang("c"), Dir("d"), Style("e"), Onclick("f"), Ondblclick("g"),
+                        Onkeyup("h"), Onkeydown("i"), Title("j"), Title("k")));
+    }
+
+    public void testContentLists()
+    {
+        assertEquals(0, TD().getContents().size());
+        assertEquals(asList("a"), TD(Class("c"), "a").getContents().stream().map(Node::getAllText).collect(toList()));
+        Element tr = TR(TD("a"), asList(TD("b"), TD("c")), Stream.of(TD("d"), TD("e")));
+        assertEquals("abcde", tr.getAllText());
+        assertEquals(5, tr.getContents().size());
+        assertEquals("c", tr.getContents().get(2).getAllText());
+        try
+        {
+            tr.getContents().set(0, TD());
+            fail();
+        }
+        catch (UnsupportedOperationException expected)
+        {
+        }
+        assertEquals(asList("a", "b", "c"), P(Class("a"), Id("b"), Title("c")).getAttributes().stream()
+                .map(Attribute::getValue).collect(toList()));
+    }
+
+    public void testHasNonInlineContents()
+    {
+        assertFalse(SPAN(B("x"), IMG()).hasNonInlineContents());
+        assertTrue(SPAN(B("x\ny")).hasNonInlineContents());
+        assertTrue(SPAN(B(I(DIV()))).hasNonInlineContents());
+        assertTrue(P(PRE()).hasNonInlineContents());
+        assertFalse(DIV().hasNonInlineContents());
+    }
+
+    public void testDeferred()
+    {
+        int[] calls = new int[1];
+        Element list = UL(LI("a"), deferred(() -> {
+            calls[0]++;
+            return Stream.of(LI("b"), Optional.of(deferred(() -> LI("c"))));
+        }));
+        assertEquals(0, calls[0]);
+        assertTrue(list.hasDeferredContents());
+        assertTrue(DIV(list).hasDeferredContents());
+        assertFalse(DIV(UL(LI("a"))).hasDeferredContents());
+        assertTrue(SPAN(deferred(() -> "x")).hasNonInlineContents());
+        assertEquals("abc", list.getAllText());
+        assertEquals(asList("a", "b", "c"), list.evaluateXPath("LI/text()"));
+        assertEquals(2, calls[0]);
+        assertThrowsIllegalArgumentException(
+                "Element 'SCRIPT' must not have deferred contents",
+                () -> SCRIPT(deferred(() -> "x")));
+        assertTrue(DIV(P(slot("s"))).hasDeferredContents());
+        assertEquals("a", DIV("a", slot("s")).getAllText());
+        assertThrowsIllegalArgumentException(
+                "Attribute 'class' must be contained in an element",
+                () -> DIV(deferred(() -> Class("x"))).getAllText());
+    }
+
+    public void testTrustedHtml()
+    {
+        Element div = DIV(P("a"), unsafeTrustedHtml("<p>b</p><div>c</div>"), "d");
+        assertEquals("ad", div.getAllText());
+        assertEquals(asList("a"), div.evaluateXPath("P/text()"));
+        assertTrue(div.evaluateXPath("DIV/text()").isEmpty());
+        assertFalse(SPAN(unsafeTrustedHtml("<b>x</b>")).hasNonInlineContents());
+        assertTrue(SPAN(unsafeTrustedHtml("<b>x</b>\n")).hasNonInlineContents());
+        assertThrowsIllegalArgumentException(
+                "Element 'SCRIPT' must not have trusted HTML contents",
+                () -> SCRIPT(unsafeTrustedHtml("x")));
+    }
+
+    public void testFrozen()
+    {
+        Frozen frozen = HtmlOutputter.freeze(HtmlOutputter.Format.MINIFIED, 0, P("a"), "b\n", P("c"));
+        Element div = DIV(frozen);
+        assertEquals("ab\nc", div.getAllText());
+        assertEquals(asList("a", "c"), div.evaluateXPath("P/text()"));
+        assertTrue(div.hasNonInlineContents());
+        assertFalse(SPAN(HtmlOutputter.freeze(HtmlOutputter.Format.MINIFIED, 0, B("x"))).hasNonInlineContents());
+        assertThrowsIllegalArgumentException(
+                "Element 'SCRIPT' must not have frozen contents",
+                () -> SCRIPT(frozen));
+    }
+
+    public void testBuilder()
+    {
+        Element built = Element.builder(TR_TYPE, 3, 1).attr(Class("odd")).child(TD("1"))
+                .child(Element.builder(TD_TYPE).text("Caf\u00E9 & ").child(B("bar")).text(null).build())
+                .children(asList(TD(), null, asHtml("x").getContents().get(0))).attr(null).build();
+        Element expected = TR(Class("odd"), TD("1"), TD("Caf\u00E9 & ", B("bar"), null), TD(), null, "x");
+        assertEquals(HtmlOutputter.render(expected), HtmlOutputter.render(built));
+        assertEquals(4, built.getContents().size());
+        assertEquals(1, built.getAttributes().size());
+        assertSame(TR_TYPE, built.getType());
+
+        assertEquals("var a = 1;", Element.builder(SCRIPT_TYPE).text("var a").text(" = 1;").build().getAllText());
+        assertThrowsIllegalArgumentException(
+                "Element 'SCRIPT' must not contain text like '</SCRIPT'",
+                () -> Element.builder(SCRIPT_TYPE).text("</").text("script>").build());
+        assertThrowsIllegalArgumentException(
+                "Void element must not have contents: BR",
+                () -> Element.builder(BR_TYPE).text("x").build());
+        assertThrowsIllegalArgumentException(
+                "Duplicate attribute 'id' in element 'P'",
+                () -> Element.builder(P_TYPE).attr(Id("a")).attr(Id("b")));
+
+        Element.Builder builder = Element.builder(P_TYPE).text("once");
+        builder.build();
+        try
+        {
+            builder.text("twice");
+            fail();
+        }
+        catch (IllegalStateException e)
+        {
+            assertEquals("Element already built: P", e.getMessage());
+        }
+    }
+
+    public void testTextMerging()
+    {
+        Element p = P("Look...", _nbsp, "Jo", ": ", 3);
+        assertEquals(1, p.getContents().size());
+        Text text = (Text) p.getContents().get(0);
+        assertEquals(5, text.getPieceCount());
+        assertEquals("3", text.getPiece(4));
+        assertEquals("Look...\u00A0Jo: 3", text.getValue());
+        assertEquals("Look...\u00A0Jo: 3", p.getAllText());
+
+        Element mixed = P("a", "", "b", B("c"), "d", "", DIV(), "", "");
+        assertEquals(5, mixed.getContents().size());
+        assertEquals(2, ((Text) mixed.getContents().get(0)).getPieceCount());
+        assertEquals(1, ((Text) mixed.getContents().get(2)).getPieceCount());
+        assertEquals("", ((Text) mixed.getContents().get(4)).getValue());
+        assertEquals(asList("c"), mixed.evaluateXPath("B/text()"));
+        assertEquals(singletonList("x"), P(asHtml("x"), asHtml(""), asHtml("")).evaluateXPath("text()"));
+        assertEquals(1, asHtml("x", p.getContents().get(0), "y").getContents().size());
+        assertEquals(7, ((Text) asHtml("x", p.getContents().get(0), "y").getContents().get(0)).getPieceCount());
+        assertTrue(SPAN("a\r", "b").hasNonInlineContents());
+        assertEquals(1, SCRIPT(p.getContents().get(0)).getContents().size());
+        assertEquals(1, ((Text) SCRIPT(p.getContents().get(0)).getContents().get(0)).getPieceCount());
+    }
+
+    public void testInterner()
+    {
+        Interner interner = new Interner(100);
+        Element first = TR(TD(SPAN(Class("badge"), "OK")), TD("1"));
+        Element second = TR(TD(SPAN(Class("badge"), "O", "K")), TD(1));
+        assertSame(first, interner.intern(first));
+        assertEquals(0, interner.getSavedBytes());
+        assertSame(first, interner.intern(second));
+        assertTrue(interner.getSavedBytes() > 0);
+        assertSame(first, interner.intern(first));
+
+        Element table = interner.intern(TABLE(TR(TD(SPAN(Class("badge"), "OK")), TD("2")), first));
+        Element row = (Element) table.getContents().get(0);
+        assertNotSame(first, row);
+        assertSame(first.getContents().get(0), row.getContents().get(0));
+        assertEquals(HtmlOutputter.render(TABLE(TR(TD(SPAN(Class("badge"), "OK")), TD("2")), second)),
+                HtmlOutputter.render(table));
+
+        // nothing that could change is shared
+        StringBuilder name = new StringBuilder("Jo");
+        interner.intern(P(text(name)));
+        Element named = P(text(name));
+        assertSame(named, interner.intern(named));
+        byte[] utf8 = "Jo".getBytes(StandardCharsets.UTF_8);
+        interner.intern(P(compactText(utf8, 0, 2)));
+        Element compact = P(compactText(utf8, 0, 2));
+        assertSame(compact, interner.intern(compact));
+        interner.intern(P(compactText("Jo")));
+        Element owned = P(compactText("Jo"));
+        assertNotSame(owned, interner.intern(owned));
+        Deferred contents = deferred(() -> "x");
+        interner.intern(P(contents));
+        Element deferred = P(contents);
+        assertSame(deferred, interner.intern(deferred));
+
+        // the least recently used entries are dropped
+        Interner small = new Interner(2);
+        Element a = B("a");
+        small.intern(a);
+        assertEquals(2, small.size());
+        small.intern(B("b"));
+        assertEquals(2, small.size());
+        assertNotSame(a, small.intern(B("a")));
+
+        // subtrees estimated to take too much aren't entered, though their descendants are
+        Interner bounded = new Interner(100, 200);
+        String line = "Lorem ipsum dolor sit amet, consectetur elit sed.";
+        Element list = bounded.intern(UL(LI("a"), LI(line)));
+        Element again = bounded.intern(UL(LI("a"), LI(line)));
+        assertNotSame(list, again);
+        assertSame(list.getContents().get(1), again.getContents().get(1));
+        Text paragraph = bounded.intern(Text.of(line + line));
+        assertNotSame(paragraph, bounded.intern(Text.of(line + line)));
+    }
+
+    public void testPersistentEdits()
+    {
+        Element nav = UL(LI(A(Href("/"), "Home")), LI(A(Href("/jobs"), "Jobs")));
+        Element main = DIV(Id("main"), P("Hello"));
+        Element page = BODY(Class("page"), nav, main);
+
+        Element active = page.updateIn(new int[] {0, 1, 0}, a -> a.withAttribute(Class("active")));
+        assertEquals(asList("active"), active.evaluateXPath("UL/LI/A/@class"));
+        assertEquals(asList("Jobs"), active.evaluateXPath("UL/LI/A[@class='active']/text()"));
+        assertSame(main, active.getContents().get(1));
+        assertSame(nav.getContents().get(0), ((Element) active.getContents().get(0)).getContents().get(0));
+        assertSame(page.getAttributes(), active.getAttributes());
+        assertSame(page, page.updateIn(new int[] {1}, element -> element));
+
+        assertEquals(asList("main2"), main.withAttribute(Id("main2")).evaluateXPath("@id"));
+        assertEquals(1, main.withAttribute(Id("main2")).getAttributes().size());
+        assertEquals(0, main.withoutAttribute("id").getAttributes().size());
+        assertSame(main, main.withoutAttribute("class"));
+        assertSame(main.getContents(), main.withoutAttribute("id").getContents());
+
+        assertEquals("<DIV id=main>Bye</DIV>\r\n", HtmlOutputter.render(main.withContents("Bye")));
+        assertEquals("<P>a, b!</P>\r\n", HtmlOutputter.render(P("a", B("x"), "!").replaceChild(1, ", b")));
+        assertEquals(1, P("a", B("x"), "!").replaceChild(1, ", b").getContents().size());
+        assertEquals("<P>a<I>y</I><I>z</I>!</P>\r\n", HtmlOutputter.render(P("a", B("x"), "!").replaceChild(1, I("y"), I("z"))));
+        assertSame(main, main.withoutAttribute("data-never-used"));
+
+        // only the replaced content and the text next to it are looked at, and the layout follows
+        Element mixed = DIV(B("x"), "a", DIV("block"), "b", I("y"));
+        Element inline = mixed.replaceChild(2, "c");
+        assertEquals(3, inline.getContents().size());
+        assertSame(mixed.getContents().get(0), inline.getContents().get(0));
+        assertSame(mixed.getContents().get(4), inline.getContents().get(2));
+        assertFalse(inline.hasNonInlineContents());
+        assertEquals(HtmlOutputter.render(DIV(B("x"), "acb", I("y"))), HtmlOutputter.render(inline));
+        assertTrue(inline.replaceChild(2, P("z")).hasNonInlineContents());
+        assertTrue(mixed.replaceChild(0, "z").hasNonInlineContents());
+        assertTrue(inline.replaceChild(0, deferred(() -> "z")).hasDeferredContents());
+        assertEquals("<DIV><B>x</B><I>y</I></DIV>\r\n", HtmlOutputter.render(inline.replaceChild(1)));
+        assertEquals("<SCRIPT>b</SCRIPT>\r\n", HtmlOutputter.render(SCRIPT("a").replaceChild(0, "b")));
+
+        assertThrowsIllegalArgumentException("Duplicate attribute 'id' in element 'DIV'", () -> main.withContents(Id("again")));
+        assertThrowsIllegalArgumentException("Void element must not have contents: BR", () -> BR().withContents("x"));
+        assertThrowsIllegalArgumentException("Content 0 of element 'P' is not an element",
+                () -> page.updateIn(new int[] {1, 0, 0}, element -> element));
+        try
+        {
+            page.replaceChild(2, "x");
+            fail();
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            assertEquals("Index: 2, Size: 2", e.getMessage());
+        }
+    }
+
     private void checkHtml(Element html, String expected)
     {
         StringBuilder builder = new StringBuilder();
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class InternerBenchmark
+{
+    /**
+     * A report whose rows repeat status badges, icons and empty cells.
+     */
+    static Element statusPage(int rows, Interner interner)
+    {
+        Element[] trs = new Element[rows];
+        for (int i = 0; i < rows; i++)
+        {
+            Element status = i % 3 == 0
+                    ? SPAN(Class("badge badge-ok"), SPAN(Class("icon icon-check")), "OK")
+                    : SPAN(Class("badge badge-warn"), SPAN(Class("icon icon-alert")), "Late");
+            if (interner != null)
+            {
+                status = interner.intern(status);
+            }
+            trs[i] = TR(TD(A(Href("/jobs/" + i), "Job #" + i)), TD(status), TD(), TD(),
+                    TD(Class("number"), i % 7), TD(BUTTON(Class("btn"), SPAN(Class("icon icon-more")))));
+        }
+        return HTML(HEAD(TITLE("Jobs")), BODY(TABLE(TBODY((Object) trs))));
+    }
+
+    public static void main(String[] args)
+    {
+        int rows = 50000;
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            long before = DeferredBenchmark.usedMemory();
+            Element plain = statusPage(rows, null);
+            long retained = DeferredBenchmark.usedMemory() - before;
+
+            Interner interner = new Interner(10000);
+            long start = System.nanoTime();
+            Element interned = interner.intern(statusPage(rows, null));
+            long time = System.nanoTime() - start;
+            long internedRetained = DeferredBenchmark.usedMemory() - before - retained;
+
+            Interner building = new Interner(10000);
+            Element whileBuilding = statusPage(rows, building);
+            long buildingRetained = DeferredBenchmark.usedMemory() - before - retained - internedRetained;
+
+            if (round > 0)
+            {
+                System.out.printf("%d rows: %.1f MB as built%n", rows, retained / 1048576.0);
+                System.out.printf("interned afterwards: %.1f MB (%.1f MB saved, %.1f MB estimated), %.3f s, %d entries%n",
+                        internedRetained / 1048576.0, (retained - internedRetained) / 1048576.0,
+                        interner.getSavedBytes() / 1048576.0, time / 1000000000.0, interner.size());
+                System.out.printf("interned badges while building: %.1f MB (%.1f MB estimated saved)%n",
+                        buildingRetained / 1048576.0, building.getSavedBytes() / 1048576.0);
+            }
+            if (!HtmlOutputter.render(plain).equals(HtmlOutputter.render(interned))
+                    || !HtmlOutputter.render(plain).equals(HtmlOutputter.render(whileBuilding)))
+            {
+                throw new AssertionError("interning changed the output");
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class NestingBenchmark
+{
+    public static void main(String[] args)
+    {
+        int n = 100000;
+        int r = 20;
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            for (int depth : new int[] { 10, 100, 1000 })
+            {
+                // the same number of elements at every depth, either all inline or all block, minified
+                // so that the indentation of deep blocks doesn't make their output quadratic
+                Element[] inline = new Element[n / depth];
+                Element[] block = new Element[n / depth];
+                for (int i = 0; i < n / depth; i++)
+                {
+                    Element span = SPAN("leaf");
+                    Element div = DIV("leaf");
+                    for (int d = 1; d < depth; d++)
+                    {
+                        span = SPAN("level " + d, span);
+                        div = DIV("level " + d, div);
+                    }
+                    inline[i] = span;
+                    block[i] = div;
+                }
+                double inlineTime = time(r, BODY((Object) inline));
+                double blockTime = time(r, BODY((Object) block));
+                if (round > 0)
+                {
+                    System.out.printf("depth %4d: inline %8.3f s, block %8.3f s%n", depth, inlineTime, blockTime);
+                }
+            }
+        }
+    }
+
+    private static double time(int r, Element body)
+    {
+        long total = 0;
+        for (int i = 0; i < r; i++)
+        {
+            HtmlOutputter<RuntimeException> outputter = new HtmlOutputter<>((buffer, offset, length) -> {},
+                    HtmlOutputter.Format.MINIFIED);
+            long start = System.nanoTime();
+            outputter.output(body);
+            long end = System.nanoTime();
+            total += (end - start);
+        }
+        return total / 1000000000.0;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.lang.management.ManagementFactory;
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class PersistentEditBenchmark
+{
+    /**
+     * A layout with a navigation menu around a large report, with one menu item marked active.
+     */
+    static Element layout(int active, int rows)
+    {
+        Element[] items = new Element[20];
+        for (int i = 0; i < items.length; i++)
+        {
+            items[i] = LI(A(Href("/section/" + i), i == active ? Class("active") : null, "Section " + i));
+        }
+        Element report = FormatBenchmark.reportPage(rows);
+        return BODY(DIV(Class("nav"), UL((Object) items)), (Element) report.getContents().get(1));
+    }
+
+    public static void main(String[] args)
+    {
+        int rows = 1000;
+        int n = 2000;
+        int edits = 1000000;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        Element cached = layout(-1, rows);
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            long count = 0;
+            for (int i = 0; i < n; i++)
+            {
+                count += layout(i % 20, rows).getContents().size();
+            }
+            long rebuild = System.nanoTime() - start;
+            long rebuildAllocated = threads.getThreadAllocatedBytes(thread) - allocated;
+
+            allocated = threads.getThreadAllocatedBytes(thread);
+            start = System.nanoTime();
+            for (int i = 0; i < edits; i++)
+            {
+                count += cached.updateIn(new int[] {0, 0, i % 20, 0}, a -> a.withAttribute(Class("active")))
+                        .getContents().size();
+            }
+            long edit = System.nanoTime() - start;
+            long editAllocated = threads.getThreadAllocatedBytes(thread) - allocated;
+
+            if (round > 0)
+            {
+                System.out.printf("rebuilding the layout: %.1f us (%d bytes allocated) per request%n",
+                        rebuild / 1000.0 / n, rebuildAllocated / n);
+                System.out.printf("editing the cached layout: %.2f us (%d bytes allocated) per request%n",
+                        edit / 1000.0 / edits, editAllocated / edits);
+            }
+            if (count != 2 * (n + edits) || !HtmlOutputter.render(layout(3, rows)).equals(HtmlOutputter.render(
+                    cached.updateIn(new int[] {0, 0, 3, 0}, a -> a.withAttribute(Class("active"))))))
+            {
+                throw new AssertionError("edited layout doesn't match the rebuilt one");
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class RawTextBenchmark
+{
+    static String scriptBody(int size, String separator)
+    {
+        StringBuilder builder = new StringBuilder(size + 100);
+        for (int i = 0; builder.length() < size; i++)
+        {
+            builder.append("var template").append(i).append(" = \"<div class='row'>\" + rows[").append(i)
+                    .append("] + \"</div></span>\";").append(separator);
+        }
+        return builder.toString();
+    }
+
+    public static void main(String[] args)
+    {
+        int r = 200;
+        String[][] bodies = {{"lines", scriptBody(1 << 20, "\n")}, {"minified", scriptBody(1 << 20, "")}};
+
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            for (String[] body : bodies)
+            {
+                String[] halves = {body[1].substring(0, body[1].length() / 2), body[1].substring(body[1].length() / 2)};
+                long single = 0;
+                long split = 0;
+                long length = 0;
+                for (int i = 0; i < r; i++)
+                {
+                    long start = System.nanoTime();
+                    Element script = SCRIPT(body[1]);
+                    long middle = System.nanoTime();
+                    Element joined = SCRIPT((Object[]) halves);
+                    long end = System.nanoTime();
+                    single += middle - start;
+                    split += end - middle;
+                    length += script.getContents().size() + joined.getContents().size();
+                }
+                if (round > 0)
+                {
+                    System.out.printf("%-8s 1 MB in one string: %8.3f ms, in two strings: %8.3f ms (%d)%n",
+                            body[0], single / 1000000.0 / r, split / 1000000.0 / r, length / r);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class SizeBenchmark
+{
+    public static void main(String[] args)
+    {
+        int r = 100;
+        Element page = FormatBenchmark.reportPage(10000);
+        Element body = (Element) page.getContents().get(1);
+        System.out.println(HtmlOutputter.measure(HtmlOutputter.Format.PRETTY, page));
+
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            long total = 0;
+            for (int i = 0; i < r; i++)
+            {
+                long start = System.nanoTime();
+                StringBuilder builder = new StringBuilder();
+                new HtmlOutputter<RuntimeException>(builder::append).output(page);
+                long end = System.nanoTime();
+                total += (end - start);
+            }
+            report(round, "render, growing builder", total);
+
+            total = 0;
+            for (int i = 0; i < r; i++)
+            {
+                long start = System.nanoTime();
+                HtmlOutputter.measure(HtmlOutputter.Format.PRETTY, page);
+                long end = System.nanoTime();
+                total += (end - start);
+            }
+            report(round, "measure", total);
+
+            total = 0;
+            for (int i = 0; i < r; i++)
+            {
+                long start = System.nanoTime();
+                HtmlOutputter.Size size = HtmlOutputter.measure(HtmlOutputter.Format.PRETTY, page);
+                StringBuilder builder = new StringBuilder((int) size.getChars());
+                new HtmlOutputter<RuntimeException>(builder::append).output(page);
+                long end = System.nanoTime();
+                total += (end - start);
+            }
+            report(round, "measure, render presized", total);
+
+            HtmlOutputter.SizeCache cache = new HtmlOutputter.SizeCache();
+            total = 0;
+            for (int i = 0; i < r; i++)
+            {
+                // a new page each time, sharing the body
+                Element fresh = HTML(HEAD(TITLE("Report " + i)), body);
+                long start = System.nanoTime();
+                cache.measure(HtmlOutputter.Format.PRETTY, fresh);
+                long end = System.nanoTime();
+                total += (end - start);
+            }
+            report(round, "measure, body cached", total);
+        }
+    }
+
+    private static void report(int round, String name, long total)
+    {
+        if (round > 0)
+        {
+            System.out.printf("%-26s %8.3f s%n", name, total / 1000000000.0);
+        }
+    }
+}
@@ -38,6 +38,10 @@ final class SpecificationParser
     static final Map<String, ElementDefinition> ELEMENTS;
     static final Map<String, AttributeDefinition> ATTRIBUTES;
 
+    // the DTD's types that only have a few distinct values in practice
+    private static final Set<String> ENUMERATED_TYPES = new HashSet<>(asList("%ContentType;", "%InputType;",
+            "%LanguageCode;", "%LinkTypes;", "%Scope;", "%Shape;", "%TFrame;", "%TRules;"));
+
     static
     {
         try
@@ -134,7 +138,10 @@ final class SpecificationParser
             {
                 continue;
             }
-            AttributeType type = typeCode.equals("(" + name + ")") ? BOOLEAN : typeCode.equals("NUMBER") ? NUMBER : STRING;
+            AttributeType type = typeCode.equals("(" + name + ")") ? BOOLEAN
+                    : typeCode.equals("NUMBER") ? NUMBER
+                    : typeCode.startsWith("(") || ENUMERATED_TYPES.contains(typeCode) ? ENUMERATED
+                    : STRING;
             EnumSet<AttributeType> types = EnumSet.of(type);
             if (attributes.containsKey(name))
             {
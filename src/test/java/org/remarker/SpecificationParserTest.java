@@ -95,7 +95,8 @@ public class SpecificationParserTest extends TestCase
         checkAttribute(attributes, "cols", EnumSet.of(NUMBER));
         checkAttribute(attributes, "colspan", EnumSet.of(NUMBER));
         checkAttribute(attributes, "class", EnumSet.of(STRING));
-        checkAttribute(attributes, "dir", EnumSet.of(STRING));
+        checkAttribute(attributes, "dir", EnumSet.of(ENUMERATED));
+        checkAttribute(attributes, "type", EnumSet.of(ENUMERATED));
         checkAttribute(attributes, "size", EnumSet.of(STRING, NUMBER));
     }
 
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class TemplateBenchmark
+{
+    static final Slot<String> TITLE_SLOT = slot("title", Html::TITLE);
+    static final Slot<String> HEADING_SLOT = slot("heading");
+    static final Slot<List<Integer>> ROWS_SLOT = slot("rows", rows -> rows.stream().map(TemplateBenchmark::row));
+
+    static Element row(int i)
+    {
+        return TR(TD(A(Href("/items/" + i), "Item #" + i)), TD("In stock"), TD(Class("number"), i * 31));
+    }
+
+    static Element page(Object title, Object heading, Object rows)
+    {
+        return HTML(HEAD(title, LINK(Rel("stylesheet"), Href("/site.css"))),
+                BODY(FrozenBenchmark.header(), DIV(Class("content"), H2(heading),
+                        TABLE(THEAD(TR(TH("Item"), TH("Status"), TH("Count"))), TBODY(rows))), FrozenBenchmark.footer()));
+    }
+
+    public static void main(String[] args)
+    {
+        int r = 20000;
+        List<Integer> rows = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            for (HtmlOutputter.Format format : HtmlOutputter.Format.values())
+            {
+                Template template = Template.compile(format, page(TITLE_SLOT, HEADING_SLOT, ROWS_SLOT));
+                for (boolean compiled : new boolean[] {false, true})
+                {
+                    long[] bytes = new long[1];
+                    long start = System.nanoTime();
+                    for (int i = 0; i < r; i++)
+                    {
+                        HtmlOutputter<RuntimeException> outputter = HtmlOutputter.utf8(
+                                (buffer, offset, length) -> bytes[0] += length, format);
+                        String title = "Page " + i;
+                        if (compiled)
+                        {
+                            outputter.output(template.fill(TITLE_SLOT, title).fill(HEADING_SLOT, title)
+                                    .fill(ROWS_SLOT, rows));
+                        }
+                        else
+                        {
+                            outputter.output(page(TITLE(title), deferred(() -> title),
+                                    deferred(() -> rows.stream().map(TemplateBenchmark::row))));
+                        }
+                    }
+                    long end = System.nanoTime();
+                    if (round > 0)
+                    {
+                        System.out.printf("%-26s %-8s %6d bytes %8.3f s%n", format, compiled ? "template" : "rebuilt",
+                                bytes[0] / r, (end - start) / 1000000000.0);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class TextBenchmark
+{
+    static Element contentPage(int items)
+    {
+        Element[] posts = new Element[items];
+        for (int i = 0; i < items; i++)
+        {
+            String name = "user" + (i % 97);
+            posts[i] = DIV(Class("post"),
+                    H3("Re: ", "Question #", i, " about ", "widgets"),
+                    P("Look...", _nbsp, name, ": ", i * 7, " replies, ", i % 13, " views"),
+                    P("Posted by ", A(Href("/users/" + name), name), " on ", "2020-01-", 10 + i % 20, ".",
+                            " Tagged ", B("java"), ", ", B("html"), " and ", B("performance"), "."),
+                    UL(LI("Score: ", i % 5, " / ", 5), LI("Status: ", i % 2 == 0 ? "open" : "closed", _mdash, "edited")));
+        }
+        return HTML(HEAD(TITLE("Forum")), BODY(H1("Forum"), P("Showing ", items, " of ", items * 3, " posts."), (Object) posts));
+    }
+
+    static long countTexts(Content content)
+    {
+        if (!(content instanceof Element))
+        {
+            return content instanceof Text ? 1 : 0;
+        }
+        long count = 0;
+        for (Content child : ((Element) content).getContents())
+        {
+            count += countTexts(child);
+        }
+        return count;
+    }
+
+    static StringBuilder logExcerpt(int length)
+    {
+        StringBuilder log = new StringBuilder(length + 100);
+        for (int i = 0; log.length() < length; i++)
+        {
+            log.append("2020-01-").append(10 + i % 20).append(" INFO [worker-").append(i % 8)
+                    .append("] request #").append(i).append(" took ").append(i % 400).append(" ms <ok>\n");
+        }
+        return log;
+    }
+
+    private static void excerpt(String label, com.sun.management.ThreadMXBean threads, Supplier<Element> excerpt,
+            int round)
+    {
+        int r = 20;
+        long thread = Thread.currentThread().getId();
+        long total = 0;
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < r; i++)
+        {
+            long start = System.nanoTime();
+            HtmlOutputter.<RuntimeException>utf8((buffer, offset, count) -> { }).output(excerpt.get());
+            total += System.nanoTime() - start;
+        }
+        allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+        if (round > 0)
+        {
+            System.out.printf("%s: build and render %.3f s (%d bytes allocated each)%n", label,
+                    total / 1000000000.0, allocated / r);
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        int items = 1000;
+        int r = 200;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int round = 0; round < 2; round++)
+        {
+            // the first round only warms up
+            long build = 0;
+            long render = 0;
+            long bytes = 0;
+            long allocated = 0;
+            Element page = null;
+            for (int i = 0; i < r; i++)
+            {
+                long before = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                page = contentPage(items);
+                long middle = System.nanoTime();
+                allocated += threads.getThreadAllocatedBytes(thread) - before;
+                long[] length = new long[1];
+                HtmlOutputter.<RuntimeException>utf8((buffer, offset, count) -> length[0] += count).output(page);
+                long end = System.nanoTime();
+                build += middle - start;
+                render += end - middle;
+                bytes += length[0];
+            }
+            if (round > 0)
+            {
+                System.out.printf("%d text nodes, %d bytes: build %.3f s (%d bytes allocated), render %.3f s%n",
+                        countTexts(page), bytes / r, build / 1000000000.0, allocated / r, render / 1000000000.0);
+            }
+
+            StringBuilder log = logExcerpt(4 << 20);
+            char[] chars = new char[log.length()];
+            log.getChars(0, chars.length, chars, 0);
+            excerpt("log excerpt as String", threads, () -> PRE(log.toString()), round);
+            excerpt("log excerpt as StringBuilder", threads, () -> PRE(text(log)), round);
+            excerpt("log excerpt as char[] slice", threads, () -> PRE(text(chars, 0, chars.length)), round);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2009-2020 by Justin T. Sampson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.remarker;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.remarker.dom.*;
+
+import static org.remarker.Html.*;
+
+public class Utf8Benchmark
+{
+    public static void main(String[] args) throws IOException
+    {
+        int rows = 10000;
+        int r = 100;
+        Element[] trs = new Element[rows];
+        for (int i = 0; i < rows; i++)
+        {
+            trs[i] = TR(TD(Class("id"), i), TD("Item #" + i + " & co."), TD("Caf\u00E9 \u6C34 \u2014 " + (i * 31)));
+        }
+        Element page = HTML(HEAD(TITLE("Report")), BODY(H1("Report"), TABLE((Object) trs)));
+
+        byte[] expected = null;
+        long charTotal = 0;
+        long byteTotal = 0;
+        for (int i = 0; i < r; i++)
+        {
+            ByteArrayOutputStream charBytes = new ByteArrayOutputStream(1 << 20);
+            Writer writer = new OutputStreamWriter(charBytes, StandardCharsets.UTF_8);
+            HtmlOutputter<IOException> charOutputter = new HtmlOutputter<>(writer::write);
+            long start = System.nanoTime();
+            charOutputter.output(page);
+            writer.flush();
+            long end = System.nanoTime();
+            charTotal += (end - start);
+
+            ByteArrayOutputStream utf8Bytes = new ByteArrayOutputStream(1 << 20);
+            HtmlOutputter<RuntimeException> utf8Outputter = HtmlOutputter.utf8(utf8Bytes::write);
+            start = System.nanoTime();
+            utf8Outputter.output(page);
+            end = System.nanoTime();
+            byteTotal += (end - start);
+
+            if (expected == null)
+            {
+                expected = charBytes.toByteArray();
+            }
+            if (!Arrays.equals(expected, charBytes.toByteArray()) || !Arrays.equals(expected, utf8Bytes.toByteArray()))
+            {
+                throw new IllegalStateException("output not expected");
+            }
+        }
+        System.out.println("Writer: " + charTotal / 1000000000.0);
+        System.out.println("UTF-8:  " + byteTotal / 1000000000.0);
+    }
+}